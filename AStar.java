@@ -6,23 +6,27 @@ import java.lang.Math;
 /**
  * This class implements functionality for a pathfinding algorithm based on the
  * A* algorithm. This class will allow instances of SmartTargetingEnemy to find
- * the path to the Player.
- * 
+ * the path to the Player. The search itself is done by the GridPathfinder
+ * shared by everything on the map.
+ *
  * @author Scarpati, Conroy.
- * @version 1.3
+ * @version 1.8
  *
  */
-public class AStar {
+public class AStar implements PathPlanner {
 	private SmartTargetingEnemy enemy;
 	private Character player;
 	private Map mapLevel;
-	private CellWeight[][] cellWeightGrid;
-	private ArrayList<CellWeight> openSet;
-	private ArrayList<CellWeight> closedSet;
+	private long expandedCount;
+	// Whether the searches use jump point search instead of plain A*.
+	private boolean jumpPoints;
+	// The last path found, from where the enemy was to the player.
+	private int[] lastPath;
+	private int lastPathLength;
 
 	/**
 	 * This constructor method initialises class attributes.
-	 * 
+	 *
 	 * @param enemy
 	 *            an instance of the Enemy.
 	 * @param player
@@ -31,143 +35,139 @@ public class AStar {
 	 *            an instance of the Map.
 	 */
 	public AStar(SmartTargetingEnemy enemy, Character player, Map mapLevel) {
+		this(enemy, player, mapLevel, false);
+	}
+
+	/**
+	 * This constructor method initialises class attributes and chooses how
+	 * the search is run.
+	 *
+	 * @param enemy
+	 *            an instance of the Enemy.
+	 * @param player
+	 *            an instance of the Player.
+	 * @param mapLevel
+	 *            an instance of the Map.
+	 * @param jumpPoints
+	 *            true to use jump point search, which finds the same length
+	 *            of path while expanding far fewer cells in open rooms.
+	 */
+	public AStar(SmartTargetingEnemy enemy, Character player, Map mapLevel, boolean jumpPoints) {
 
 		this.setEnemy(enemy);
 		this.setPlayer(player);
 		this.setMapLevel(mapLevel);
-		this.setCellWeightGrid(mapLevel.getMapWidth(), mapLevel.getMapHeight());
-		this.setOpenSet();
-		this.setClosedSet();
+		this.jumpPoints = jumpPoints;
 	}
 
 	/**
 	 * This method finds the shortest path between the Enemy and the Player.
-	 * 
+	 * The search shares the map's per tick budget; while it is paused the
+	 * enemy keeps following the last path it found.
+	 *
 	 * @return an ArrayList containing all the steps required to reach the
-	 *         Player.
-	 */
-	public ArrayList<CellWeight> findPath() {
-
-		ArrayList<CellWeight> finalPath = new ArrayList<CellWeight>();
-		this.updateData();
-		this.setOpenSet();
-		this.closedSet.clear();
-
-		boolean foundPlayer = false;
-		while (!this.openSet.isEmpty()) {
-			CellWeight current = this.findLowestFCost();
-
-			if (current.getCell().getX() == this.player.getLocation().getX()
-					&& current.getCell().getY() == this.player.getLocation().getY()) {
-				foundPlayer = true;
-				CellWeight temp = current;
-				finalPath.add(temp);
-
-				while (temp.getPreviousCell() != null) {
-					finalPath.add(temp.getPreviousCell());
-					CellWeight temp2 = temp;
-
-					temp = temp.getPreviousCell();
-					temp2.setPreviousCell(null);
-				}
-
-				this.clearPrevious();
+	 *         Player, starting at the Player and ending at the Enemy.
+	 */
+	public ArrayList<BasicCell> findPath() {
+		GridPathfinder pathfinder = this.mapLevel.getPathfinder();
+		int start = pathfinder.indexOf(this.enemy.getLocation());
+		int goal = pathfinder.indexOf(this.player.getLocation());
+
+		int status = pathfinder.requestPath(this, start, goal, this.enemy.getSafeLevel(), this.jumpPoints);
+		this.expandedCount += pathfinder.getExpandedCount();
+		if (status == GridPathfinder.NO_PATH) {
+			this.lastPathLength = 0;
+			return getRandomMoves();
+		}
 
-				return finalPath;
+		if (status == GridPathfinder.FOUND) {
+			// A search that was paused starts where the enemy used to be, so
+			// it is only kept if the enemy is still on it.
+			int length = pathfinder.getPathLength();
+			int offset = 0;
+			while (offset < length && pathfinder.getPathNode(offset) != start) {
+				offset++;
 			}
-
-			this.openSet.remove(current);
-			this.closedSet.add(current);
-
-			this.setNeighbours(current);
-
-			ArrayList<CellWeight> neighbours = current.getNeighbourSet();
-
-			for (int i = 0; i < neighbours.size(); i++) {
-				CellWeight neighbour = neighbours.get(i);
-
-				float tempGCost = current.getgCost() + 1;
-
-				if (this.openSet.contains(neighbour)) {
-					if (tempGCost < neighbour.getgCost()) {
-						neighbour.setgCost(tempGCost);
-					}
-				} else {
-					neighbour.setgCost(tempGCost);
-					if (!closedSet.contains(neighbour)) {
-						this.openSet.add(neighbour);
-					}
-
+			if (offset < length) {
+				if (this.lastPath == null || this.lastPath.length < length) {
+					this.lastPath = new int[length];
 				}
-
-				if (current.getPreviousCell() != neighbour) {
-					neighbour.setPreviousCell(current);
+				for (int i = offset; i < length; i++) {
+					this.lastPath[i - offset] = pathfinder.getPathNode(i);
 				}
+				this.lastPathLength = length - offset;
 			}
 		}
-		return getRandomMoves();
 
+		return this.followLastPath(pathfinder, start);
 	}
 
 	/**
-	 * This method determines the next cell to move to. if the cell is not a
-	 * neighbour of the current cell, the enemy moves randomly.
-	 * 
+	 * Gets what is left of the last path found from the enemy's cell.
+	 *
+	 * @param pathfinder
+	 *            the map's pathfinder.
+	 * @param start
+	 *            the index of the enemy's cell.
+	 * @return the steps to the end of the path, starting at the end and
+	 *         ending at the Enemy, or just the Enemy's cell if it is not on
+	 *         the path.
+	 */
+	private ArrayList<BasicCell> followLastPath(GridPathfinder pathfinder, int start) {
+		ArrayList<BasicCell> finalPath = new ArrayList<BasicCell>();
+		int offset = 0;
+		while (offset < this.lastPathLength && this.lastPath[offset] != start) {
+			offset++;
+		}
+		if (offset == this.lastPathLength) {
+			finalPath.add(this.enemy.getLocation());
+			return finalPath;
+		}
+
+		for (int i = this.lastPathLength - 1; i >= offset; i--) {
+			finalPath.add(pathfinder.getCell(this.lastPath[i]));
+		}
+		return finalPath;
+	}
+
+	/**
+	 * This method determines the next cell to move to. if there is no path
+	 * to the player, the enemy moves randomly.
+	 *
 	 * @return the next cell to move towards.
 	 */
 	public BasicCell getMove() {
-		ArrayList<CellWeight> temp = this.findPath();
+		ArrayList<BasicCell> temp = this.findPath();
 
 		int pos = temp.size() - 2;
 		if (pos < 0) {
 			pos = 0;
 		}
 
-		boolean isContained = false;
-
-		CellWeight current = this.getLocationCellWeight();
-
-		for (int i = 0; i < current.getNeighbourSet().size(); i++) {
-			if (current.getNeighbourSet().get(i) == temp.get(pos)) {
-				isContained = true;
-			}
-		}
-
-		if (isContained) {
-			return temp.get(pos).getCell();
-		} else {
-			return current.getCell();
-		}
-
+		return temp.get(pos);
 	}
 
 	/**
-	 * This method determines the neighbour set of all cells in the grid.
+	 * get how many cells have been expanded by the searches of this enemy.
+	 *
+	 * @return the number of expanded cells.
 	 */
-	public void setAllNeighbours() {
-		for (int i = 0; i < this.cellWeightGrid.length; i++) {
-			for (int j = 0; j < this.cellWeightGrid[0].length; j++) {
-				this.cellWeightGrid[i][j].addNeighbours(this.cellWeightGrid, this.closedSet);
-			}
-		}
+	public long getExpandedCount() {
+		return expandedCount;
 	}
 
 	/**
-	 * This method determines the neighbour set of a certain cell.
-	 * 
-	 * @param cell
-	 *            the CellWeight whose neighbour set is to be determined.
+	 * get whether the searches use jump point search.
+	 *
+	 * @return true if jump point search is used.
 	 */
-	public void setNeighbours(CellWeight cell) {
-		int x = cell.getCell().getX();
-		int y = cell.getCell().getY();
-
-		this.cellWeightGrid[x][y].addNeighbours(this.cellWeightGrid, this.closedSet);
+	public boolean isJumpPoints() {
+		return jumpPoints;
 	}
 
 	/**
 	 * get the mapLevel.
-	 * 
+	 *
 	 * @return the mapLevel.
 	 */
 	public Map getMapLevel() {
@@ -176,7 +176,7 @@ public class AStar {
 
 	/**
 	 * set the mapLevel.
-	 * 
+	 *
 	 * @param mapLevel
 	 *            an instance to the mapLevel.
 	 */
@@ -186,7 +186,7 @@ public class AStar {
 
 	/**
 	 * get the Enemy.
-	 * 
+	 *
 	 * @return the enemy.
 	 */
 	public SmartTargetingEnemy getEnemy() {
@@ -195,43 +195,16 @@ public class AStar {
 
 	/**
 	 * get the player.
-	 * 
+	 *
 	 * @return the instance of player.
 	 */
 	public Character getPlayer() {
 		return player;
 	}
 
-	/**
-	 * get the cellWeightGrid.
-	 * 
-	 * @return the instance of cellWeightGrid.
-	 */
-	public CellWeight[][] getCellWeightGrid() {
-		return cellWeightGrid;
-	}
-
-	/**
-	 * get the openSet.
-	 * 
-	 * @return the instance of openSet.
-	 */
-	public ArrayList<CellWeight> getOpenSet() {
-		return openSet;
-	}
-
-	/**
-	 * get the closedSet.
-	 * 
-	 * @return the instance of closedSet.
-	 */
-	public ArrayList<CellWeight> getClosedSet() {
-		return closedSet;
-	}
-
 	/**
 	 * set the enemy.
-	 * 
+	 *
 	 * @param enemy
 	 *            the new Enemy instance.
 	 */
@@ -241,7 +214,7 @@ public class AStar {
 
 	/**
 	 * set the player.
-	 * 
+	 *
 	 * @param player
 	 *            the new Player instance.
 	 */
@@ -250,46 +223,9 @@ public class AStar {
 
 	}
 
-	/**
-	 * set the cellWeightGrid.
-	 * 
-	 * @param rows
-	 *            the number of rows in the grid.
-	 * @param cols
-	 *            the number of columns in the grid.
-	 */
-	public void setCellWeightGrid(int rows, int cols) {
-		this.cellWeightGrid = new CellWeight[rows][cols];
-		for (int i = 0; i < rows; i++) {
-			for (int j = 0; j < cols; j++) {
-				this.cellWeightGrid[i][j] = new CellWeight(this.enemy, this.player, this.mapLevel,
-						this.mapLevel.getCell(i, j));
-			}
-		}
-
-	}
-
-	/**
-	 * initialises the openSet and adds the enemy location to it.
-	 */
-	public void setOpenSet() {
-		int startX = this.enemy.getLocation().getX();
-		int startY = this.enemy.getLocation().getY();
-
-		this.openSet = new ArrayList<CellWeight>();
-		this.openSet.add(this.cellWeightGrid[startX][startY]);
-	}
-
-	/**
-	 * initialises the closedSet.
-	 */
-	public void setClosedSet() {
-		this.closedSet = new ArrayList<CellWeight>();
-	}
-
 	/**
 	 * this method generates a random integer between 2 bounds.
-	 * 
+	 *
 	 * @param min
 	 *            the min bound.
 	 * @param max
@@ -301,78 +237,16 @@ public class AStar {
 		return x;
 	}
 
-	/**
-	 * find the cell in the openSet with the lowest F Cost.
-	 * 
-	 * @return the cell with the lowest F Cost.
-	 */
-	private CellWeight findLowestFCost() {
-		CellWeight minNode = this.openSet.get(0);
-		float minValue = this.openSet.get(0).calculateFCost();
-
-		for (int i = 0; i < this.openSet.size(); i++) {
-			CellWeight currentNode = this.openSet.get(i);
-			float currentValue = this.openSet.get(i).calculateFCost();
-
-			if (currentValue < minValue) {
-				minValue = currentValue;
-				minNode = currentNode;
-			}
-		}
-
-		return minNode;
-	}
-
 	/**
 	 * this method picks a valid but random move for the enemy.
-	 * 
-	 * @return an ArrayList containing the chosen move.
+	 *
+	 * @return an ArrayList containing the chosen move and the enemy location.
 	 */
-	private ArrayList<CellWeight> getRandomMoves() {
-		ArrayList<CellWeight> randomMoveArray = new ArrayList<CellWeight>();
-		randomMoveArray.add(this.getLocationCellWeight());
-		int randomNumber = this.getRandomInt(0, 3);
-		CellWeight move = this.getLocationCellWeight().getNeighbourSet().get(randomNumber);
-		while (!this.enemy.canMove(move.getCell())) {
-			randomNumber = this.getRandomInt(0, 3);
-			move = this.getLocationCellWeight().getNeighbourSet().get(randomNumber);
-
-		}
-		randomMoveArray.add(move);
-		randomMoveArray.add(move);
+	private ArrayList<BasicCell> getRandomMoves() {
+		ArrayList<BasicCell> randomMoveArray = new ArrayList<BasicCell>();
+		randomMoveArray.add(this.enemy.getRandomMove());
+		randomMoveArray.add(this.enemy.getLocation());
 		return randomMoveArray;
 
 	}
-
-	/**
-	 * updates the data of the grid (G Cost and H Cost).
-	 */
-	private void updateData() {
-		for (int i = 0; i < this.cellWeightGrid.length; i++) {
-			for (int j = 0; j < this.cellWeightGrid[0].length; j++) {
-				this.cellWeightGrid[i][j].updateData();
-			}
-		}
-	}
-
-	/**
-	 * this method gets the CellWeight correspondent to the cell in which 
-	 * the enemy is standing on.
-	 * 
-	 * @return the Enemy's CellWeight.
-	 */
-	private CellWeight getLocationCellWeight() {
-		return this.cellWeightGrid[this.enemy.getLocation().getX()][this.enemy.getLocation().getY()];
-	}
-
-	/**
-	 * sets the previous attributes of cellWeight instances to null.
-	 */
-	private void clearPrevious() {
-		for (int i = 0; i < this.cellWeightGrid.length; i++) {
-			for (int j = 0; j < this.cellWeightGrid[0].length; j++) {
-				this.cellWeightGrid[i][j].setPreviousCell(null);
-			}
-		}
-	}
 }
@@ -0,0 +1,198 @@
+package application;
+
+import java.util.ArrayList;
+
+/**
+ * Lets a SmartTargetingEnemy get its paths from the map's
+ * PathfindingService, so its moves never wait for a search. Each move it
+ * picks up the newest path that has been found, asks for a path from the
+ * cell it is moving to, and follows the path it has until a new one
+ * arrives. A path found on a map that has changed since is not used, and
+ * nor is one from an older request than the path it already has.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.1
+ */
+public class AsyncPlanner implements PathPlanner {
+	// How many moves to wait for an answer before asking again.
+	public static final int MAX_WAIT_MOVES = 8;
+
+	private Enemy enemy;
+	private Character player;
+	private Map mapLevel;
+	private PathfindingService service;
+	private int enemyId;
+
+	// The path being followed, and how far along it the enemy is.
+	private PathResult path;
+	private int pathIndex;
+	// How many moves since the last request, or -1 if there is none.
+	private int waitingMoves;
+	// The number of the request whose path was last adopted, or -1.
+	private long adoptedRequest;
+	// The cells expanded by the searches run for this enemy.
+	private long expandedCount;
+
+	/**
+	 * Creates the planner.
+	 *
+	 * @param enemy
+	 *            an instance of the Enemy.
+	 * @param player
+	 *            an instance of the Player.
+	 * @param mapLevel
+	 *            an instance of the Map.
+	 */
+	public AsyncPlanner(Enemy enemy, Character player, Map mapLevel) {
+		this.enemy = enemy;
+		this.player = player;
+		this.mapLevel = mapLevel;
+		this.service = mapLevel.getPathfindingService();
+		this.enemyId = this.service.register();
+		this.waitingMoves = -1;
+		this.adoptedRequest = -1;
+		this.expandedCount = 0;
+		this.request(this.indexOf(enemy.getLocation()));
+	}
+
+	/**
+	 * Determines the next cell to move to from the newest path found. If
+	 * there is no path yet the enemy stays where it is, and if the player
+	 * cannot be reached it moves randomly.
+	 *
+	 * @return the next cell to move towards.
+	 */
+	public BasicCell getMove() {
+		int location = this.indexOf(this.enemy.getLocation());
+		PathResult result = this.service.poll(this.enemyId);
+		if (result != null) {
+			this.expandedCount += result.getExpandedCount();
+			// A request that finishes after a newer one has been adopted
+			// would send the enemy back onto an old route.
+			if (result.getRequestNumber() > this.adoptedRequest) {
+				this.waitingMoves = -1;
+				if (this.service.isCurrent(result) && result.isFound()) {
+					this.adopt(result, location);
+				}
+			}
+		}
+
+		int goal = this.indexOf(this.player.getLocation());
+		BasicCell move;
+		if (location == goal) {
+			move = this.enemy.getLocation();
+		} else if (!this.mapLevel.getComponents(this.enemy.getSafeLevel()).isConnected(location, goal)) {
+			this.path = null;
+			return this.enemy.getRandomMove();
+		} else if (this.isOnPath(location)) {
+			this.pathIndex++;
+			move = this.getCell(this.path.getPathNode(this.pathIndex));
+		} else {
+			move = this.enemy.getLocation();
+		}
+
+		if (this.waitingMoves < 0 || this.waitingMoves >= MAX_WAIT_MOVES) {
+			this.request(this.indexOf(move));
+		} else {
+			this.waitingMoves++;
+		}
+		return move;
+	}
+
+	/**
+	 * Gives the rest of the path being followed. No search is run.
+	 *
+	 * @return the cells to the end of the path, starting at the end and
+	 *         ending at the Enemy.
+	 */
+	public ArrayList<BasicCell> findPath() {
+		ArrayList<BasicCell> cells = new ArrayList<BasicCell>();
+		if (this.isOnPath(this.indexOf(this.enemy.getLocation()))) {
+			for (int i = this.path.getPathLength() - 1; i > this.pathIndex; i--) {
+				cells.add(this.getCell(this.path.getPathNode(i)));
+			}
+		}
+		cells.add(this.enemy.getLocation());
+		return cells;
+	}
+
+	/**
+	 * Gets how many cells the background searches have expanded for this
+	 * enemy, as carried back in the answers picked up so far.
+	 *
+	 * @return the number of expanded cells.
+	 */
+	public long getExpandedCount() {
+		return this.expandedCount;
+	}
+
+	/**
+	 * Starts following a new path from where the enemy is on it. The enemy
+	 * may have moved on along the old path since it asked, so if it is not
+	 * on the new path the old one is kept.
+	 *
+	 * @param result
+	 *            the new path.
+	 * @param location
+	 *            the index of the enemy's cell.
+	 */
+	private void adopt(PathResult result, int location) {
+		for (int i = 0; i < result.getPathLength(); i++) {
+			if (result.getPathNode(i) == location) {
+				this.path = result;
+				this.pathIndex = i;
+				this.adoptedRequest = result.getRequestNumber();
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Asks the service for a path from a cell to the Player.
+	 *
+	 * @param start
+	 *            the index of the cell the enemy will be on.
+	 */
+	private void request(int start) {
+		this.service.request(this.enemyId, start, this.indexOf(this.player.getLocation()),
+				this.enemy.getSafeLevel());
+		this.waitingMoves = 0;
+	}
+
+	/**
+	 * Checks if the path being followed can still be followed from a cell.
+	 *
+	 * @param location
+	 *            the index of the enemy's cell.
+	 * @return true if the cell is the next unfinished step of a current
+	 *         path.
+	 */
+	private boolean isOnPath(int location) {
+		return this.path != null && this.service.isCurrent(this.path)
+				&& this.pathIndex < this.path.getPathLength() - 1
+				&& this.path.getPathNode(this.pathIndex) == location;
+	}
+
+	/**
+	 * Gets the index of a cell.
+	 *
+	 * @param cell
+	 *            the cell.
+	 * @return the index, y * width + x.
+	 */
+	private int indexOf(BasicCell cell) {
+		return cell.getY() * this.mapLevel.getMapWidth() + cell.getX();
+	}
+
+	/**
+	 * Gets the cell of the map at an index.
+	 *
+	 * @param index
+	 *            the index of the cell.
+	 * @return the cell.
+	 */
+	private BasicCell getCell(int index) {
+		int width = this.mapLevel.getMapWidth();
+		return this.mapLevel.getCell(index % width, index / width);
+	}
+}
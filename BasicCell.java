@@ -52,11 +52,23 @@ public class BasicCell {
 	 * @param gc The Graphics Context.
 	 */
 	public void draw(GraphicsContext gc) {
+		drawAt(gc, positionX, positionY);
+	}
+
+	/**
+	 * Draws the look of the cell onto the gc at a position, so one cell
+	 * can be drawn for every tile of its type.
+	 * 
+	 * @param gc The Graphics Context.
+	 * @param x The x position to draw it at.
+	 * @param y The y position to draw it at.
+	 */
+	public void drawAt(GraphicsContext gc, int x, int y) {
 		// Check if wall or normal floor cell and display the correct image.
 		if (safeLevel == WALL_SAFELEVEL) {
-			gc.drawImage(WALL_IMAGE, positionX * size, positionY * size);
+			gc.drawImage(WALL_IMAGE, x * size, y * size);
 		} else {
-			gc.drawImage(NORMAL_IMAGE, positionX * size, positionY * size);
+			gc.drawImage(NORMAL_IMAGE, x * size, y * size);
 		}
 	}
 
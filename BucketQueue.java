@@ -0,0 +1,174 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * A priority queue of node indexes for whole number priorities that never
+ * run more than a fixed range ahead of the lowest one, as in Dial's
+ * algorithm. Each priority has a bucket in a ring and the nodes in a
+ * bucket are kept in a doubly linked list made of int arrays, so adding,
+ * removing and lowering the priority of a node are all constant time and
+ * nothing is boxed. Taking the lowest node only has to step round the
+ * ring, which has one bucket for each priority in the range.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.0
+ */
+public class BucketQueue {
+	private static final int NONE = -1;
+
+	// The first node of each bucket.
+	private int[] heads;
+	// The nodes before and after each node in its bucket.
+	private int[] next;
+	private int[] previous;
+	// The priority of each node in the queue, or NONE.
+	private int[] priorities;
+	// The priority of the bucket the ring is at.
+	private int current;
+	private int size;
+
+	/**
+	 * Creates an empty queue.
+	 *
+	 * @param capacity
+	 *            one more than the largest node index.
+	 * @param range
+	 *            the most a priority can be above the lowest one in the
+	 *            queue.
+	 */
+	public BucketQueue(int capacity, int range) {
+		this.heads = new int[range + 1];
+		this.next = new int[capacity];
+		this.previous = new int[capacity];
+		this.priorities = new int[capacity];
+		Arrays.fill(this.heads, NONE);
+		Arrays.fill(this.priorities, NONE);
+		this.current = 0;
+		this.size = 0;
+	}
+
+	/**
+	 * Adds a node that is not in the queue.
+	 *
+	 * @param node
+	 *            the node index.
+	 * @param priority
+	 *            its priority, no lower than the last node taken out and
+	 *            no more than the range above it.
+	 */
+	public void add(int node, int priority) {
+		if (this.size == 0) {
+			this.current = priority;
+		}
+		int bucket = priority % this.heads.length;
+		int head = this.heads[bucket];
+		this.next[node] = head;
+		this.previous[node] = NONE;
+		if (head != NONE) {
+			this.previous[head] = node;
+		}
+		this.heads[bucket] = node;
+		this.priorities[node] = priority;
+		this.size++;
+	}
+
+	/**
+	 * Lowers the priority of a node already in the queue.
+	 *
+	 * @param node
+	 *            the node index.
+	 * @param priority
+	 *            the new priority.
+	 */
+	public void decreaseKey(int node, int priority) {
+		this.remove(node);
+		this.add(node, priority);
+	}
+
+	/**
+	 * Takes a node out of the queue.
+	 *
+	 * @param node
+	 *            the node index.
+	 */
+	public void remove(int node) {
+		int before = this.previous[node];
+		int after = this.next[node];
+		if (before == NONE) {
+			this.heads[this.priorities[node] % this.heads.length] = after;
+		} else {
+			this.next[before] = after;
+		}
+		if (after != NONE) {
+			this.previous[after] = before;
+		}
+		this.priorities[node] = NONE;
+		this.size--;
+	}
+
+	/**
+	 * Takes out a node with the lowest priority.
+	 *
+	 * @return the node index.
+	 */
+	public int poll() {
+		int bucket = this.current % this.heads.length;
+		while (this.heads[bucket] == NONE) {
+			this.current++;
+			bucket = this.current % this.heads.length;
+		}
+		int node = this.heads[bucket];
+		this.remove(node);
+		return node;
+	}
+
+	/**
+	 * Checks if a node is in the queue.
+	 *
+	 * @param node
+	 *            the node index.
+	 * @return true if it is.
+	 */
+	public boolean contains(int node) {
+		return this.priorities[node] != NONE;
+	}
+
+	/**
+	 * Gets the priority of a node in the queue.
+	 *
+	 * @param node
+	 *            the node index.
+	 * @return the priority.
+	 */
+	public int getPriority(int node) {
+		return this.priorities[node];
+	}
+
+	/**
+	 * Checks if the queue is empty.
+	 *
+	 * @return true if it is.
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Gets how many nodes are in the queue.
+	 *
+	 * @return the number of nodes.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Empties the queue.
+	 */
+	public void clear() {
+		while (this.size > 0) {
+			this.poll();
+		}
+	}
+}
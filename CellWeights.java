@@ -0,0 +1,87 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * How much it costs to move onto each kind of cell, for pathfinding that
+ * should prefer some cells over others. A weight set for a class of cell
+ * is also used for its subclasses unless they have a weight of their own.
+ * Moving through a teleporter costs the teleporter's weight.
+ *
+ * The weights are kept small, from 1 to MAX_WEIGHT, so that searches using
+ * them can keep their open set in a ring of buckets.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.0
+ */
+public class CellWeights {
+	public static final int MIN_WEIGHT = 1;
+	public static final int MAX_WEIGHT = 15;
+	// The weights used unless they are changed.
+	public static final int FLOOR_WEIGHT = 1;
+	public static final int DEADLY_WEIGHT = 4;
+	public static final int TELEPORTER_WEIGHT = 3;
+
+	// The classes that have a weight, and their weights.
+	private Class<?>[] types;
+	private int[] weights;
+	private int count;
+
+	/**
+	 * Creates the weights with plain cells costing the least, deadly cells
+	 * the most and teleporters in between.
+	 */
+	public CellWeights() {
+		this.types = new Class<?>[4];
+		this.weights = new int[4];
+		this.count = 0;
+		this.setWeight(BasicCell.class, FLOOR_WEIGHT);
+		this.setWeight(DeadlyCell.class, DEADLY_WEIGHT);
+		this.setWeight(Teleporter.class, TELEPORTER_WEIGHT);
+	}
+
+	/**
+	 * Sets the weight of a class of cell.
+	 *
+	 * @param type
+	 *            the class of cell.
+	 * @param weight
+	 *            the cost of moving onto it, kept between MIN_WEIGHT and
+	 *            MAX_WEIGHT.
+	 */
+	public void setWeight(Class<? extends BasicCell> type, int weight) {
+		weight = Math.max(MIN_WEIGHT, Math.min(MAX_WEIGHT, weight));
+		for (int i = 0; i < this.count; i++) {
+			if (this.types[i] == type) {
+				this.weights[i] = weight;
+				return;
+			}
+		}
+		if (this.count == this.types.length) {
+			this.types = Arrays.copyOf(this.types, this.count * 2);
+			this.weights = Arrays.copyOf(this.weights, this.count * 2);
+		}
+		this.types[this.count] = type;
+		this.weights[this.count] = weight;
+		this.count++;
+	}
+
+	/**
+	 * Gets the cost of moving onto a cell, from the weight of its class or
+	 * the closest superclass that has one.
+	 *
+	 * @param cell
+	 *            the cell.
+	 * @return the weight.
+	 */
+	public int getWeight(BasicCell cell) {
+		for (Class<?> type = cell.getClass(); type != null; type = type.getSuperclass()) {
+			for (int i = 0; i < this.count; i++) {
+				if (this.types[i] == type) {
+					return this.weights[i];
+				}
+			}
+		}
+		return FLOOR_WEIGHT;
+	}
+}
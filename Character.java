@@ -7,7 +7,7 @@ import javafx.scene.paint.Color;
  * A character that can interact with the map.
  * 
  * @author William Conroy
- * @version 1.0
+ * @version 1.1
  *
  */
 public class Character {
@@ -67,7 +67,7 @@ public class Character {
 	 * @return true if can move onto cell
 	 */
 	protected boolean canMove(BasicCell nextCell) {
-		return (nextCell.getSafeLevel() == 0);
+		return map.isPassable(nextCell.getX(), nextCell.getY(), this.safeLevel);
 	}
 
 	// -------------- Setters - and - Getters ------------------//
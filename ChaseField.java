@@ -0,0 +1,184 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * A distance field shared by all the enemies chasing the same target. One
+ * breadth first search is run outward from the target's cell and every
+ * cell remembers how far it is from the target and which direction to step
+ * in to get closer, so each enemy can read its next move straight from the
+ * field. The field is only rebuilt when the target moves or the map
+ * changes.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.1
+ */
+public class ChaseField {
+	public static final int UNREACHABLE = -1;
+
+	private Map mapLevel;
+	private Character target;
+	private NavGraph graph;
+
+	private int[] distance;
+	private byte[] nextDir;
+	private int[] queue;
+
+	// What the field was last built for.
+	private int builtTarget;
+	private int builtChangeCount;
+	private long expandedCount;
+
+	/**
+	 * Creates the field for a target.
+	 *
+	 * @param mapLevel
+	 *            the map.
+	 * @param target
+	 *            the character being chased.
+	 * @param safeLevel
+	 *            the safe level of the chasing enemies.
+	 */
+	public ChaseField(Map mapLevel, Character target, int safeLevel) {
+		this.mapLevel = mapLevel;
+		this.target = target;
+		this.graph = mapLevel.getNavGraph(safeLevel);
+
+		int size = mapLevel.getMapWidth() * mapLevel.getMapHeight();
+		this.distance = new int[size];
+		this.nextDir = new byte[size];
+		this.queue = new int[size];
+		this.builtTarget = GridPathfinder.NO_NODE;
+	}
+
+	/**
+	 * Rebuilds the field if the target has moved or the map has changed
+	 * since it was last built.
+	 */
+	public void update() {
+		int targetNode = this.indexOf(this.target.getLocation());
+		if (targetNode != this.builtTarget || this.graph.getChangeCount() != this.builtChangeCount) {
+			this.build(targetNode);
+		}
+	}
+
+	/**
+	 * Gets how many steps a cell is from the target.
+	 *
+	 * @param cell
+	 *            the cell.
+	 * @return the number of steps, or UNREACHABLE.
+	 */
+	public int getDistance(BasicCell cell) {
+		this.update();
+		return this.distance[this.indexOf(cell)];
+	}
+
+	/**
+	 * Gets how many steps a cell is from the target.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 * @return the number of steps, or UNREACHABLE.
+	 */
+	public int getDistance(int node) {
+		this.update();
+		return this.distance[node];
+	}
+
+	/**
+	 * Gets the cell to move to from a cell to get closer to the target.
+	 *
+	 * @param cell
+	 *            the cell an enemy is on.
+	 * @return the next cell, or null if the target cannot be reached or has
+	 *         already been reached.
+	 */
+	public BasicCell getNextCell(BasicCell cell) {
+		this.update();
+		int node = this.indexOf(cell);
+		if (this.distance[node] <= 0) {
+			return null;
+		}
+		return this.getCell(this.graph.getNeighbour(node, this.nextDir[node]));
+	}
+
+	/**
+	 * Gets how many cells have been expanded by all the builds of the field.
+	 *
+	 * @return the number of expanded cells.
+	 */
+	public long getExpandedCount() {
+		return this.expandedCount;
+	}
+
+	/**
+	 * Gets the character being chased.
+	 *
+	 * @return the target.
+	 */
+	public Character getTarget() {
+		return this.target;
+	}
+
+	/**
+	 * Runs the breadth first search outward from the target. A cell is
+	 * reached from a cell next to it only if an enemy could step from the
+	 * new cell onto the old one.
+	 *
+	 * @param targetNode
+	 *            the index of the target's cell.
+	 */
+	private void build(int targetNode) {
+		Arrays.fill(this.distance, UNREACHABLE);
+		this.builtTarget = targetNode;
+		this.builtChangeCount = this.graph.getChangeCount();
+
+		int head = 0;
+		int tail = 0;
+		this.distance[targetNode] = 0;
+		this.queue[tail++] = targetNode;
+
+		while (head < tail) {
+			int current = this.queue[head++];
+			this.expandedCount++;
+			int mask = this.graph.getNeighbourMask(current);
+
+			for (int dir = 0; dir < NavGraph.DIRECTIONS; dir++) {
+				if ((mask & (1 << dir)) == 0) {
+					continue;
+				}
+				int neighbour = this.graph.getNeighbour(current, dir);
+				int back = (dir + 2) % NavGraph.DIRECTIONS;
+				if (this.distance[neighbour] == UNREACHABLE && this.graph.canMove(neighbour, back)) {
+					this.distance[neighbour] = this.distance[current] + 1;
+					this.nextDir[neighbour] = (byte) back;
+					this.queue[tail++] = neighbour;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the index of a cell.
+	 *
+	 * @param cell
+	 *            the cell.
+	 * @return the index, y * width + x.
+	 */
+	private int indexOf(BasicCell cell) {
+		return cell.getY() * this.mapLevel.getMapWidth() + cell.getX();
+	}
+
+	/**
+	 * Gets the cell of the map at an index.
+	 *
+	 * @param index
+	 *            the index of the cell.
+	 * @return the cell.
+	 */
+	private BasicCell getCell(int index) {
+		int width = this.mapLevel.getMapWidth();
+		return this.mapLevel.getCell(index % width, index / width);
+	}
+}
@@ -0,0 +1,83 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ * Lets a SmartTargetingEnemy follow a ChaseField shared with the other
+ * enemies chasing the same target, instead of running its own search.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.1
+ */
+public class ChasePlanner implements PathPlanner {
+	private Enemy enemy;
+	private ChaseField field;
+	// The field's expansions from the builds this enemy's queries caused.
+	private long expandedCount;
+
+	/**
+	 * Creates the planner.
+	 *
+	 * @param enemy
+	 *            the enemy that is moving.
+	 * @param field
+	 *            the shared field towards the target.
+	 */
+	public ChasePlanner(Enemy enemy, ChaseField field) {
+		this.enemy = enemy;
+		this.field = field;
+		this.expandedCount = 0;
+	}
+
+	/**
+	 * Determines the next cell to move to. If the target cannot be reached
+	 * the enemy moves randomly.
+	 *
+	 * @return the next cell to move towards.
+	 */
+	public BasicCell getMove() {
+		long before = this.field.getExpandedCount();
+		BasicCell next = this.field.getNextCell(this.enemy.getLocation());
+		this.expandedCount += this.field.getExpandedCount() - before;
+		if (next != null) {
+			return next;
+		}
+		if (this.field.getDistance(this.enemy.getLocation()) == 0) {
+			return this.enemy.getLocation();
+		}
+		return this.enemy.getRandomMove();
+	}
+
+	/**
+	 * Follows the field from the enemy to the target.
+	 *
+	 * @return the steps to the target, starting at the target and ending at
+	 *         the enemy.
+	 */
+	public ArrayList<BasicCell> findPath() {
+		ArrayList<BasicCell> path = new ArrayList<BasicCell>();
+		long before = this.field.getExpandedCount();
+		this.field.update();
+		this.expandedCount += this.field.getExpandedCount() - before;
+		BasicCell current = this.enemy.getLocation();
+		while (current != null) {
+			path.add(current);
+			current = this.field.getNextCell(current);
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	/**
+	 * Gets how many cells the shared field has expanded while being rebuilt
+	 * for this enemy's queries. A query that finds the field already built
+	 * adds nothing, so the counts of all the enemies sharing the field add
+	 * up to the work the field has done for them.
+	 *
+	 * @return the number of expanded cells.
+	 */
+	public long getExpandedCount() {
+		return this.expandedCount;
+	}
+}
@@ -0,0 +1,232 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * Holds the tiles of a map in chunks of CHUNK_SIZE by CHUNK_SIZE tiles. A
+ * chunk whose tiles are all the same, such as open floor or solid rock, is
+ * kept as that one code. The tiles of a chunk are only stored one by one
+ * once a different tile is written into it, by the level being loaded or
+ * by setToBasic(), so a big level that is mostly empty takes memory for
+ * the parts that have something in them. Reading a tile never fills in
+ * a chunk, as the cells handed out are made from the codes. The
+ * navigation and search data the map works out from the tiles are not
+ * chunked, and still take memory for every cell of the map.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.2
+ */
+public class ChunkedTileGrid extends TileStore {
+	// Chunks are 1 << CHUNK_BITS tiles across.
+	public static final int CHUNK_BITS = 6;
+	public static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+	// The code of a chunk nothing has been written into.
+	private static final byte UNSET = -1;
+	private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+	private int width;
+	private int height;
+	private int chunksAcross;
+	// The code of every tile of each chunk without its own tiles.
+	private byte[] uniform;
+	// The tiles of each chunk, row by row, or null if it is uniform.
+	private byte[][] detail;
+	// The payload of the tiles that have one, keyed on y * width + x.
+	private LongIntHashMap payloads;
+
+	/**
+	 * Creates a grid with nothing written into it. A chunk reads as wall
+	 * until a tile is written into it, and the first tile written then
+	 * decides what the rest of the chunk reads as, which suits a loader
+	 * that writes every tile.
+	 *
+	 * @param width
+	 *            the width of the map.
+	 * @param height
+	 *            the height of the map.
+	 */
+	public ChunkedTileGrid(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.chunksAcross = (width + CHUNK_MASK) >> CHUNK_BITS;
+		int chunksDown = (height + CHUNK_MASK) >> CHUNK_BITS;
+		this.uniform = new byte[this.chunksAcross * chunksDown];
+		Arrays.fill(this.uniform, UNSET);
+		this.detail = new byte[this.uniform.length][];
+		this.payloads = new LongIntHashMap(16);
+	}
+
+	/**
+	 * Gets the width of the grid.
+	 *
+	 * @return the width.
+	 */
+	public int getWidth() {
+		return this.width;
+	}
+
+	/**
+	 * Gets the height of the grid.
+	 *
+	 * @return the height.
+	 */
+	public int getHeight() {
+		return this.height;
+	}
+
+	/**
+	 * Gets the type of a tile.
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @return the type code.
+	 */
+	public byte getCode(int x, int y) {
+		int chunk = this.chunkOf(x, y);
+		byte[] tiles = this.detail[chunk];
+		if (tiles != null) {
+			return tiles[((y & CHUNK_MASK) << CHUNK_BITS) | (x & CHUNK_MASK)];
+		}
+		byte code = this.uniform[chunk];
+		return code == UNSET ? WALL : code;
+	}
+
+	/**
+	 * Gets the payload of a tile.
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @return the payload, or LongIntHashMap.NO_VALUE if it has none.
+	 */
+	public int getPayload(int x, int y) {
+		return this.payloads.get(y * this.width + x);
+	}
+
+	/**
+	 * Stores a tile that has no payload, for setTile().
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @param code
+	 *            the type code.
+	 */
+	protected void putTile(int x, int y, byte code) {
+		this.setCode(x, y, code);
+		this.payloads.remove(y * this.width + x);
+	}
+
+	/**
+	 * Stores a tile with a payload, for setTile().
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @param code
+	 *            the type code.
+	 * @param payload
+	 *            the payload, not negative.
+	 */
+	protected void putTile(int x, int y, byte code, int payload) {
+		this.setCode(x, y, code);
+		this.payloads.put(y * this.width + x, payload);
+	}
+
+	/**
+	 * Checks if a chunk has its own tiles.
+	 *
+	 * @param x
+	 *            the x position of a tile in the chunk.
+	 * @param y
+	 *            the y position of a tile in the chunk.
+	 * @return true if the chunk has been filled in.
+	 */
+	public boolean isMaterialized(int x, int y) {
+		return this.detail[this.chunkOf(x, y)] != null;
+	}
+
+	/**
+	 * Gets how many chunks have their own tiles.
+	 *
+	 * @return the number of filled in chunks.
+	 */
+	public int getMaterializedCount() {
+		int count = 0;
+		for (int chunk = 0; chunk < this.detail.length; chunk++) {
+			if (this.detail[chunk] != null) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Turns any chunk whose tiles have all become the same back into a
+	 * single code, such as after a loader has written every tile.
+	 */
+	public void compact() {
+		for (int chunk = 0; chunk < this.detail.length; chunk++) {
+			byte[] tiles = this.detail[chunk];
+			if (tiles == null) {
+				continue;
+			}
+			boolean same = true;
+			for (int i = 1; i < tiles.length && same; i++) {
+				same = tiles[i] == tiles[0];
+			}
+			if (same) {
+				this.uniform[chunk] = tiles[0];
+				this.detail[chunk] = null;
+			}
+		}
+	}
+
+	/**
+	 * Writes the code of a tile, filling in its chunk first if the tile
+	 * no longer matches the rest of the chunk.
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @param code
+	 *            the type code.
+	 */
+	private void setCode(int x, int y, byte code) {
+		int chunk = this.chunkOf(x, y);
+		byte[] tiles = this.detail[chunk];
+		if (tiles == null) {
+			if (this.uniform[chunk] == UNSET) {
+				// The first tile written decides what the chunk is made of.
+				this.uniform[chunk] = code;
+				return;
+			}
+			if (this.uniform[chunk] == code) {
+				return;
+			}
+			tiles = new byte[CHUNK_SIZE * CHUNK_SIZE];
+			Arrays.fill(tiles, this.uniform[chunk]);
+			this.detail[chunk] = tiles;
+		}
+		tiles[((y & CHUNK_MASK) << CHUNK_BITS) | (x & CHUNK_MASK)] = code;
+	}
+
+	/**
+	 * Gets the chunk a tile is in.
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @return the index of the chunk.
+	 */
+	private int chunkOf(int x, int y) {
+		return (y >> CHUNK_BITS) * this.chunksAcross + (x >> CHUNK_BITS);
+	}
+}
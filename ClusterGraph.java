@@ -0,0 +1,681 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * A hierarchical view of a map for pathfinding on very large levels, based
+ * on HPA*. The map is split into square clusters. Where two clusters touch
+ * and a character can cross between them, entrance cells are placed on
+ * both sides, and the distance between every pair of entrances inside a
+ * cluster is worked out in advance. A search first runs over the entrances
+ * only and then works out the real cells just for the first part of the
+ * route. When a cell changes only its cluster, and the cluster next to it
+ * if the cell is on the border, is rebuilt the next time it is needed.
+ *
+ * A teleporter that leads out of a cluster gets an entrance on each side,
+ * joined by the one move through it, and the search over the entrances
+ * uses TeleporterBounds so the H Cost still never overestimates. Changes
+ * are read from the NavGraph's change log, since a change on one side of a
+ * teleporter also changes the moves on the other side.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.2
+ */
+public class ClusterGraph {
+	public static final int CLUSTER_SIZE = 16;
+	// Open stretches of border longer than this get an entrance at each end.
+	public static final int MAX_ENTRANCE_WIDTH = 6;
+
+	private static final int INFINITY = Integer.MAX_VALUE / 2;
+	private static final byte OPEN = 1;
+	private static final byte CLOSED = 2;
+
+	private Map mapLevel;
+	private int safeLevel;
+	private NavGraph graph;
+	private int width;
+	private int height;
+	private int clustersAcross;
+	private int clustersDown;
+
+	// For every cluster, its entrance cells, the cell across the border from
+	// each entrance and the distances between entrances.
+	private int[][] entrances;
+	private int[][] partners;
+	private int[] entranceCounts;
+	private int[][] distances;
+	private boolean[] dirty;
+	// How many of the graph's changes have been marked.
+	private int seenChangeCount;
+	// For every cell, where it is in its cluster's entrances, or -1.
+	private int[] entranceSlot;
+
+	// Scratch space for searches inside one cluster.
+	private int[] localDistance;
+	private int[] localParent;
+	private int[] localStamp;
+	private int[] localQueue;
+	private int localGeneration;
+	private int[] goalDistance;
+
+	// Scratch space for the search over entrances. The start and goal get
+	// the two ids after the last cell.
+	private int startNode;
+	private int goalNode;
+	private int[] gCost;
+	private int[] parent;
+	private byte[] state;
+	private int[] stamp;
+	private int generation;
+	private NodeHeap openSet;
+
+	private int[] waypoints;
+	private int waypointCount;
+	private int expandedCount;
+	// The bound on the distance to the goal, allowing for teleporters.
+	private TeleporterBounds bounds;
+
+	/**
+	 * Creates the hierarchical view of a map. The clusters are built the
+	 * first time they are needed.
+	 *
+	 * @param mapLevel
+	 *            the map.
+	 * @param safeLevel
+	 *            the safe level of the characters using it.
+	 */
+	public ClusterGraph(Map mapLevel, int safeLevel) {
+		this.mapLevel = mapLevel;
+		this.safeLevel = safeLevel;
+		this.graph = mapLevel.getNavGraph(safeLevel);
+		this.width = mapLevel.getMapWidth();
+		this.height = mapLevel.getMapHeight();
+		this.clustersAcross = (this.width + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+		this.clustersDown = (this.height + CLUSTER_SIZE - 1) / CLUSTER_SIZE;
+
+		int clusters = this.clustersAcross * this.clustersDown;
+		this.entrances = new int[clusters][];
+		this.partners = new int[clusters][];
+		this.entranceCounts = new int[clusters];
+		this.distances = new int[clusters][];
+		this.dirty = new boolean[clusters];
+		Arrays.fill(this.dirty, true);
+		this.seenChangeCount = this.graph.getChangeCount();
+
+		int size = this.width * this.height;
+		this.entranceSlot = new int[size];
+		Arrays.fill(this.entranceSlot, -1);
+
+		int local = CLUSTER_SIZE * CLUSTER_SIZE;
+		this.localDistance = new int[local];
+		this.localParent = new int[local];
+		this.localStamp = new int[local];
+		this.localQueue = new int[local];
+		this.goalDistance = new int[4 * CLUSTER_SIZE];
+
+		this.startNode = size;
+		this.goalNode = size + 1;
+		this.gCost = new int[size + 2];
+		this.parent = new int[size + 2];
+		this.state = new byte[size + 2];
+		this.stamp = new int[size + 2];
+		this.openSet = new NodeHeap(size + 2);
+		this.waypoints = new int[size + 2];
+		this.bounds = new TeleporterBounds(this.width);
+	}
+
+	/**
+	 * Finds the first step of a route between two cells. The route is
+	 * planned over the entrances and only the part inside the start
+	 * cluster is worked out cell by cell.
+	 *
+	 * @param start
+	 *            the index of the starting cell.
+	 * @param goal
+	 *            the index of the cell to reach.
+	 * @return the index of the cell to move to, or GridPathfinder.NO_NODE
+	 *         if the goal cannot be reached or has been reached.
+	 */
+	public int findFirstStep(int start, int goal) {
+		this.waypointCount = 0;
+		this.expandedCount = 0;
+		if (start == goal || !this.mapLevel.getComponents(this.safeLevel).isConnected(start, goal)) {
+			return GridPathfinder.NO_NODE;
+		}
+		this.refresh();
+		this.bounds.setTarget(this.graph, goal);
+
+		int startCluster = this.getCluster(start);
+		int goalCluster = this.getCluster(goal);
+
+		// Distances from the goal to the entrances of its cluster.
+		this.searchCluster(goalCluster, goal, true);
+		int goalCount = this.entranceCounts[goalCluster];
+		if (this.goalDistance.length < goalCount) {
+			this.goalDistance = new int[goalCount * 2];
+		}
+		for (int i = 0; i < goalCount; i++) {
+			this.goalDistance[i] = this.getLocalDistance(goalCluster, this.entrances[goalCluster][i]);
+		}
+
+		// The search from the start is left in the scratch space to refine
+		// the first part of the route afterwards.
+		this.searchCluster(startCluster, start, false);
+		if (!this.searchEntrances(start, goal, startCluster, goalCluster)) {
+			return GridPathfinder.NO_NODE;
+		}
+
+		int target = this.waypoints[1];
+		if (target == start && this.waypointCount > 2) {
+			target = this.waypoints[2];
+		}
+		if (this.getCluster(target) != startCluster) {
+			return target;
+		}
+		return this.traceFirstStep(startCluster, start, target);
+	}
+
+	/**
+	 * Gets how many waypoints the last route has, including the start and
+	 * the goal.
+	 *
+	 * @return the number of waypoints.
+	 */
+	public int getWaypointCount() {
+		return this.waypointCount;
+	}
+
+	/**
+	 * Gets a waypoint of the last route.
+	 *
+	 * @param i
+	 *            the number of the waypoint, 0 being the start.
+	 * @return the index of the cell.
+	 */
+	public int getWaypoint(int i) {
+		return this.waypoints[i];
+	}
+
+	/**
+	 * Gets how many entrances the last search expanded.
+	 *
+	 * @return the number of expanded entrances.
+	 */
+	public int getExpandedCount() {
+		return this.expandedCount;
+	}
+
+	/**
+	 * Rebuilds every cluster that has changed since it was last built.
+	 */
+	public void refresh() {
+		int changes = this.graph.getChangeCount();
+		for (int change = this.seenChangeCount; change < changes; change++) {
+			if (!this.graph.isLogged(change)) {
+				Arrays.fill(this.dirty, true);
+				break;
+			}
+			this.markChanged(this.graph.getChangedNode(change));
+		}
+		this.seenChangeCount = changes;
+
+		for (int c = 0; c < this.dirty.length; c++) {
+			if (this.dirty[c]) {
+				this.rebuildCluster(c);
+			}
+		}
+	}
+
+	/**
+	 * Gets the cluster a cell is in.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 * @return the number of the cluster.
+	 */
+	public int getCluster(int node) {
+		int x = node % this.width;
+		int y = node / this.width;
+		return (y / CLUSTER_SIZE) * this.clustersAcross + x / CLUSTER_SIZE;
+	}
+
+	/**
+	 * Runs A* over the entrances from the start to the goal and keeps the
+	 * route as waypoints.
+	 *
+	 * @param start
+	 *            the index of the starting cell.
+	 * @param goal
+	 *            the index of the cell to reach.
+	 * @param startCluster
+	 *            the cluster of the start.
+	 * @param goalCluster
+	 *            the cluster of the goal.
+	 * @return true if a route was found.
+	 */
+	private boolean searchEntrances(int start, int goal, int startCluster, int goalCluster) {
+		this.generation++;
+		if (this.generation == 0) {
+			Arrays.fill(this.stamp, 0);
+			this.generation = 1;
+		}
+		this.openSet.clear();
+		this.touch(this.startNode, 0, GridPathfinder.NO_NODE);
+		this.openSet.add(this.startNode, this.calculateHCost(start));
+
+		while (!this.openSet.isEmpty()) {
+			int current = this.openSet.poll();
+			if (current == this.goalNode) {
+				this.buildWaypoints(start, goal);
+				return true;
+			}
+			this.state[current] = CLOSED;
+			this.expandedCount++;
+
+			if (current == this.startNode) {
+				for (int i = 0; i < this.entranceCounts[startCluster]; i++) {
+					int entrance = this.entrances[startCluster][i];
+					this.relax(current, entrance, this.getLocalDistance(startCluster, entrance), goal);
+				}
+				if (startCluster == goalCluster) {
+					this.relax(current, this.goalNode, this.getLocalDistance(startCluster, goal), goal);
+				}
+				continue;
+			}
+
+			int cluster = this.getCluster(current);
+			int count = this.entranceCounts[cluster];
+			int[] clusterEntrances = this.entrances[cluster];
+			int from = this.entranceSlot[current];
+			for (int i = 0; i < count; i++) {
+				if (clusterEntrances[i] == current) {
+					this.relax(current, this.partners[cluster][i], 1, goal);
+				} else {
+					this.relax(current, clusterEntrances[i], this.distances[cluster][from * count + i], goal);
+				}
+			}
+			if (cluster == goalCluster) {
+				this.relax(current, this.goalNode, this.goalDistance[from], goal);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Tries to reach a node of the entrance search through another.
+	 *
+	 * @param current
+	 *            the node being expanded.
+	 * @param next
+	 *            the node to reach.
+	 * @param cost
+	 *            the distance between them.
+	 * @param goal
+	 *            the index of the goal cell.
+	 */
+	private void relax(int current, int next, int cost, int goal) {
+		if (cost >= INFINITY) {
+			return;
+		}
+		int tempGCost = this.gCost[current] + cost;
+		int h = next == this.goalNode ? 0 : this.calculateHCost(next);
+
+		if (this.stamp[next] != this.generation) {
+			this.touch(next, tempGCost, current);
+			this.openSet.add(next, tempGCost + h);
+		} else if (this.state[next] == OPEN && tempGCost < this.gCost[next]) {
+			this.gCost[next] = tempGCost;
+			this.parent[next] = current;
+			this.openSet.decreaseKey(next, tempGCost + h);
+		}
+	}
+
+	/**
+	 * Marks a node as visited by the current entrance search.
+	 *
+	 * @param node
+	 *            the node.
+	 * @param g
+	 *            the distance from the start.
+	 * @param from
+	 *            the node it was reached from.
+	 */
+	private void touch(int node, int g, int from) {
+		this.stamp[node] = this.generation;
+		this.state[node] = OPEN;
+		this.gCost[node] = g;
+		this.parent[node] = from;
+	}
+
+	/**
+	 * Copies the route found by the entrance search into the waypoints, from
+	 * start to goal.
+	 *
+	 * @param start
+	 *            the index of the starting cell.
+	 * @param goal
+	 *            the index of the goal cell.
+	 */
+	private void buildWaypoints(int start, int goal) {
+		int count = 0;
+		for (int node = this.goalNode; node != GridPathfinder.NO_NODE; node = this.parent[node]) {
+			count++;
+		}
+		int i = count - 1;
+		for (int node = this.goalNode; node != GridPathfinder.NO_NODE; node = this.parent[node]) {
+			if (node == this.startNode) {
+				this.waypoints[i] = start;
+			} else if (node == this.goalNode) {
+				this.waypoints[i] = goal;
+			} else {
+				this.waypoints[i] = node;
+			}
+			i--;
+		}
+		this.waypointCount = count;
+	}
+
+	/**
+	 * Walks back from a cell to the start of the last search inside a
+	 * cluster and returns the cell after the start.
+	 *
+	 * @param cluster
+	 *            the cluster that was searched.
+	 * @param start
+	 *            the cell the search started from.
+	 * @param target
+	 *            the cell to walk back from.
+	 * @return the index of the first cell to move to.
+	 */
+	private int traceFirstStep(int cluster, int start, int target) {
+		int originX = (cluster % this.clustersAcross) * CLUSTER_SIZE;
+		int originY = (cluster / this.clustersAcross) * CLUSTER_SIZE;
+		int local = this.toLocal(target, originX, originY);
+		int startLocal = this.toLocal(start, originX, originY);
+
+		while (this.localParent[local] != startLocal) {
+			local = this.localParent[local];
+		}
+		return (originY + local / CLUSTER_SIZE) * this.width + originX + local % CLUSTER_SIZE;
+	}
+
+	/**
+	 * Marks the cluster of a changed cell, and the cluster across the
+	 * border if the cell is on one, to be rebuilt.
+	 *
+	 * @param node
+	 *            the index of the changed cell.
+	 */
+	private void markChanged(int node) {
+		int x = node % this.width;
+		int y = node / this.width;
+		int cx = x / CLUSTER_SIZE;
+		int cy = y / CLUSTER_SIZE;
+		this.dirty[cy * this.clustersAcross + cx] = true;
+
+		if (x % CLUSTER_SIZE == 0 && cx > 0) {
+			this.dirty[cy * this.clustersAcross + cx - 1] = true;
+		}
+		if (x % CLUSTER_SIZE == CLUSTER_SIZE - 1 && cx < this.clustersAcross - 1) {
+			this.dirty[cy * this.clustersAcross + cx + 1] = true;
+		}
+		if (y % CLUSTER_SIZE == 0 && cy > 0) {
+			this.dirty[(cy - 1) * this.clustersAcross + cx] = true;
+		}
+		if (y % CLUSTER_SIZE == CLUSTER_SIZE - 1 && cy < this.clustersDown - 1) {
+			this.dirty[(cy + 1) * this.clustersAcross + cx] = true;
+		}
+	}
+
+	/**
+	 * Rebuilds the entrances of a cluster and the distances between them.
+	 *
+	 * @param cluster
+	 *            the number of the cluster.
+	 */
+	private void rebuildCluster(int cluster) {
+		for (int i = 0; i < this.entranceCounts[cluster]; i++) {
+			this.entranceSlot[this.entrances[cluster][i]] = -1;
+		}
+		this.entranceCounts[cluster] = 0;
+		if (this.entrances[cluster] == null) {
+			this.entrances[cluster] = new int[4];
+			this.partners[cluster] = new int[4];
+		}
+
+		int originX = (cluster % this.clustersAcross) * CLUSTER_SIZE;
+		int originY = (cluster / this.clustersAcross) * CLUSTER_SIZE;
+		int endX = Math.min(originX + CLUSTER_SIZE, this.width) - 1;
+		int endY = Math.min(originY + CLUSTER_SIZE, this.height) - 1;
+
+		if (originY > 0) {
+			this.addBorderEntrances(cluster, originY * this.width + originX, 1, endX - originX + 1,
+					Character.DIRECTION_UP);
+		}
+		if (endX < this.width - 1) {
+			this.addBorderEntrances(cluster, originY * this.width + endX, this.width, endY - originY + 1,
+					Character.DIRECTION_RIGHT);
+		}
+		if (endY < this.height - 1) {
+			this.addBorderEntrances(cluster, endY * this.width + originX, 1, endX - originX + 1,
+					Character.DIRECTION_DOWN);
+		}
+		if (originX > 0) {
+			this.addBorderEntrances(cluster, originY * this.width + originX, this.width, endY - originY + 1,
+					Character.DIRECTION_LEFT);
+		}
+		if (this.graph.getTeleporterCount() > 0) {
+			this.addTeleportEntrances(cluster, originX, originY, endX, endY);
+		}
+
+		int count = this.entranceCounts[cluster];
+		for (int i = count - 1; i >= 0; i--) {
+			this.entranceSlot[this.entrances[cluster][i]] = i;
+		}
+
+		int[] clusterDistances = new int[count * count];
+		for (int i = 0; i < count; i++) {
+			this.searchCluster(cluster, this.entrances[cluster][i], false);
+			for (int j = 0; j < count; j++) {
+				clusterDistances[i * count + j] = this.getLocalDistance(cluster, this.entrances[cluster][j]);
+			}
+		}
+		this.distances[cluster] = clusterDistances;
+		this.dirty[cluster] = false;
+	}
+
+	/**
+	 * Adds an entrance for every move through a teleporter that leaves a
+	 * cluster. The cell at the other end gets its entrance when its own
+	 * cluster is built, as the move back through the teleporter leads here.
+	 *
+	 * @param cluster
+	 *            the number of the cluster.
+	 * @param originX
+	 *            the x position of the cluster's top left cell.
+	 * @param originY
+	 *            the y position of the cluster's top left cell.
+	 * @param endX
+	 *            the x position of the cluster's bottom right cell.
+	 * @param endY
+	 *            the y position of the cluster's bottom right cell.
+	 */
+	private void addTeleportEntrances(int cluster, int originX, int originY, int endX, int endY) {
+		for (int y = originY; y <= endY; y++) {
+			for (int x = originX; x <= endX; x++) {
+				int node = y * this.width + x;
+				if (!this.graph.isOpen(node)) {
+					continue;
+				}
+				int mask = this.graph.getNeighbourMask(node);
+				for (int dir = 0; dir < NavGraph.DIRECTIONS; dir++) {
+					if ((mask & (1 << dir)) != 0 && this.graph.isTeleport(node, dir)
+							&& this.getCluster(this.graph.getNeighbour(node, dir)) != cluster) {
+						this.addEntrance(cluster, node, dir);
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the stretches of a cluster border that can be crossed in both
+	 * directions and adds entrances for them. Moves through a teleporter
+	 * are left to addTeleportEntrances().
+	 *
+	 * @param cluster
+	 *            the number of the cluster.
+	 * @param first
+	 *            the index of the first border cell inside the cluster.
+	 * @param step
+	 *            how far apart in the index the border cells are.
+	 * @param length
+	 *            how many cells long the border is.
+	 * @param dir
+	 *            the direction that crosses the border.
+	 */
+	private void addBorderEntrances(int cluster, int first, int step, int length, int dir) {
+		int runStart = -1;
+		for (int i = 0; i <= length; i++) {
+			int node = first + i * step;
+			boolean open = i < length && this.graph.isOpen(node) && this.graph.canMove(node, dir)
+					&& !this.graph.isTeleport(node, dir);
+
+			if (open && runStart < 0) {
+				runStart = i;
+			} else if (!open && runStart >= 0) {
+				int runEnd = i - 1;
+				if (runEnd - runStart + 1 > MAX_ENTRANCE_WIDTH) {
+					this.addEntrance(cluster, first + runStart * step, dir);
+					this.addEntrance(cluster, first + runEnd * step, dir);
+				} else {
+					this.addEntrance(cluster, first + ((runStart + runEnd) / 2) * step, dir);
+				}
+				runStart = -1;
+			}
+		}
+	}
+
+	/**
+	 * Adds an entrance to a cluster.
+	 *
+	 * @param cluster
+	 *            the number of the cluster.
+	 * @param node
+	 *            the index of the entrance cell.
+	 * @param dir
+	 *            the direction of the cell across the border.
+	 */
+	private void addEntrance(int cluster, int node, int dir) {
+		int count = this.entranceCounts[cluster];
+		if (count == this.entrances[cluster].length) {
+			this.entrances[cluster] = Arrays.copyOf(this.entrances[cluster], count * 2);
+			this.partners[cluster] = Arrays.copyOf(this.partners[cluster], count * 2);
+		}
+		this.entrances[cluster][count] = node;
+		this.partners[cluster][count] = this.graph.getNeighbour(node, dir);
+		this.entranceCounts[cluster] = count + 1;
+	}
+
+	/**
+	 * Runs a breadth first search from a cell that does not leave its
+	 * cluster.
+	 *
+	 * @param cluster
+	 *            the number of the cluster.
+	 * @param source
+	 *            the index of the cell to search from.
+	 * @param reverse
+	 *            true to find how far each cell is from reaching the source
+	 *            rather than how far it is from the source.
+	 */
+	private void searchCluster(int cluster, int source, boolean reverse) {
+		this.localGeneration++;
+		if (this.localGeneration == 0) {
+			Arrays.fill(this.localStamp, 0);
+			this.localGeneration = 1;
+		}
+		int originX = (cluster % this.clustersAcross) * CLUSTER_SIZE;
+		int originY = (cluster / this.clustersAcross) * CLUSTER_SIZE;
+
+		int head = 0;
+		int tail = 0;
+		int sourceLocal = this.toLocal(source, originX, originY);
+		this.localStamp[sourceLocal] = this.localGeneration;
+		this.localDistance[sourceLocal] = 0;
+		this.localParent[sourceLocal] = -1;
+		this.localQueue[tail++] = source;
+
+		while (head < tail) {
+			int current = this.localQueue[head++];
+			int currentLocal = this.toLocal(current, originX, originY);
+			int mask = this.graph.getNeighbourMask(current);
+
+			for (int dir = 0; dir < NavGraph.DIRECTIONS; dir++) {
+				if ((mask & (1 << dir)) == 0) {
+					continue;
+				}
+				int neighbour = this.graph.getNeighbour(current, dir);
+				if (this.getCluster(neighbour) != cluster) {
+					continue;
+				}
+				if (reverse && !this.graph.canMove(neighbour, (dir + 2) % NavGraph.DIRECTIONS)) {
+					continue;
+				}
+				int neighbourLocal = this.toLocal(neighbour, originX, originY);
+				if (this.localStamp[neighbourLocal] != this.localGeneration) {
+					this.localStamp[neighbourLocal] = this.localGeneration;
+					this.localDistance[neighbourLocal] = this.localDistance[currentLocal] + 1;
+					this.localParent[neighbourLocal] = currentLocal;
+					this.localQueue[tail++] = neighbour;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Gets the distance to a cell found by the last search inside a cluster.
+	 *
+	 * @param cluster
+	 *            the cluster that was searched.
+	 * @param node
+	 *            the index of the cell.
+	 * @return the distance, or INFINITY if it was not reached.
+	 */
+	private int getLocalDistance(int cluster, int node) {
+		int originX = (cluster % this.clustersAcross) * CLUSTER_SIZE;
+		int originY = (cluster / this.clustersAcross) * CLUSTER_SIZE;
+		int local = this.toLocal(node, originX, originY);
+		if (this.localStamp[local] != this.localGeneration) {
+			return INFINITY;
+		}
+		return this.localDistance[local];
+	}
+
+	/**
+	 * Turns the index of a cell into its index inside its cluster.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 * @param originX
+	 *            the x position of the cluster's top left cell.
+	 * @param originY
+	 *            the y position of the cluster's top left cell.
+	 * @return the index inside the cluster.
+	 */
+	private int toLocal(int node, int originX, int originY) {
+		return (node / this.width - originY) * CLUSTER_SIZE + node % this.width - originX;
+	}
+
+	/**
+	 * Calculates the H Cost of a cell, a bound on its distance to the goal
+	 * that allows for teleporters.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 * @return the H Cost.
+	 */
+	private int calculateHCost(int node) {
+		return this.bounds.getHCost(node);
+	}
+}
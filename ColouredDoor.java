@@ -7,7 +7,7 @@ import javafx.scene.image.Image;
  * Creates a coloured door.
  * 
  * @author Jolene Foong
- * @version 1.0
+ * @version 1.1
  * @since 25/11/19
  *
  */
@@ -34,16 +34,18 @@ public class ColouredDoor extends BasicCell {
 	 * Draws a coloured door with image.
 	 * 
 	 * @param gc draws the door with image and position
+	 * @param x The x position to draw it at.
+	 * @param y The y position to draw it at.
 	 */
-	public void draw(GraphicsContext gc) {
+	public void drawAt(GraphicsContext gc, int x, int y) {
 		if (doorColour.equals(Key.RED)) {
-			gc.drawImage(RED_DOOR, positionX * Game.ELEMENT_SIZE, positionY 
+			gc.drawImage(RED_DOOR, x * Game.ELEMENT_SIZE, y 
 					* Game.ELEMENT_SIZE);
 		} else if (doorColour.equals(Key.GREEN)) {
-			gc.drawImage(GREEN_DOOR, positionX * Game.ELEMENT_SIZE, positionY 
+			gc.drawImage(GREEN_DOOR, x * Game.ELEMENT_SIZE, y 
 					* Game.ELEMENT_SIZE);
 		} else if (doorColour.equals(Key.BLUE)) {
-			gc.drawImage(BLUE_DOOR, positionX * Game.ELEMENT_SIZE, positionY 
+			gc.drawImage(BLUE_DOOR, x * Game.ELEMENT_SIZE, y 
 					* Game.ELEMENT_SIZE);
 		}
 	}
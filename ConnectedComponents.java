@@ -0,0 +1,216 @@
+package application;
+
+/**
+ * Labels the parts of a map that characters of one safe level can move
+ * between, so a search for a cell that cannot be reached can be turned
+ * down straight away instead of searching everything that can be reached.
+ * The labels are kept in a union-find structure. When a cell opens up, for
+ * example a door is unlocked, it is joined with the parts next to it; the
+ * labels are only built again from nothing if a cell is ever closed.
+ * Cells are joined along the moves of the map's NavGraph, so the two sides
+ * of a teleporter are in the same part.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.1
+ */
+public class ConnectedComponents implements MapListener {
+	// The parent of a cell that cannot be moved onto.
+	private static final int BLOCKED = -1;
+
+	private NavGraph graph;
+
+	// The union-find parent of each cell, and the size of each root's part.
+	private int[] parent;
+	private int[] size;
+	private boolean dirty;
+
+	/**
+	 * Creates the labels for a map. They are built the first time they are
+	 * needed.
+	 *
+	 * @param mapLevel
+	 *            the map.
+	 * @param safeLevel
+	 *            the safe level of the characters using them.
+	 */
+	public ConnectedComponents(Map mapLevel, int safeLevel) {
+		// Getting the graph first means it hears about changes before these
+		// labels do.
+		this.graph = mapLevel.getNavGraph(safeLevel);
+		int cells = mapLevel.getMapWidth() * mapLevel.getMapHeight();
+		this.parent = new int[cells];
+		this.size = new int[cells];
+		this.dirty = true;
+	}
+
+	/**
+	 * Checks if a character standing on one cell could ever reach another.
+	 *
+	 * @param start
+	 *            the index of the cell the character is on.
+	 * @param goal
+	 *            the index of the cell to reach.
+	 * @return true if there is a way between them.
+	 */
+	public boolean isConnected(int start, int goal) {
+		if (this.dirty) {
+			this.build();
+		}
+		if (start == goal) {
+			return true;
+		}
+		if (this.parent[goal] == BLOCKED) {
+			return false;
+		}
+		int goalRoot = this.find(goal);
+		if (this.parent[start] != BLOCKED) {
+			return this.find(start) == goalRoot;
+		}
+
+		// A character can stand on a cell it could not move onto, so look at
+		// where it could step to instead.
+		int mask = this.graph.getNeighbourMask(start);
+		for (int dir = 0; dir < NavGraph.DIRECTIONS; dir++) {
+			if ((mask & (1 << dir)) != 0 && this.isInPart(this.graph.getNeighbour(start, dir), goalRoot)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the label of the part of the map a cell is in. Two cells have the
+	 * same label if, and only if, they are connected.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 * @return the label, or -1 if the cell cannot be moved onto.
+	 */
+	public int getLabel(int node) {
+		if (this.dirty) {
+			this.build();
+		}
+		if (this.parent[node] == BLOCKED) {
+			return BLOCKED;
+		}
+		return this.find(node);
+	}
+
+	/**
+	 * Joins a cell that has opened up with the parts around it. A cell that
+	 * has closed means the labels have to be built again.
+	 *
+	 * @param x
+	 *            the x position of the changed cell.
+	 * @param y
+	 *            the y position of the changed cell.
+	 * @param version
+	 *            the version of the map after the change.
+	 */
+	public void cellChanged(int x, int y, int version) {
+		if (this.dirty) {
+			return;
+		}
+		int node = y * this.graph.getWidth() + x;
+		boolean open = this.graph.isOpen(node);
+		boolean wasOpen = this.parent[node] != BLOCKED;
+
+		if (open && !wasOpen) {
+			this.parent[node] = node;
+			this.size[node] = 1;
+			this.joinNeighbours(node);
+		} else if (!open && wasOpen) {
+			this.dirty = true;
+		}
+	}
+
+	/**
+	 * Labels every cell of the map from nothing.
+	 */
+	private void build() {
+		for (int node = 0; node < this.parent.length; node++) {
+			if (this.graph.isOpen(node)) {
+				this.parent[node] = node;
+				this.size[node] = 1;
+			} else {
+				this.parent[node] = BLOCKED;
+			}
+		}
+
+		for (int node = 0; node < this.parent.length; node++) {
+			if (this.parent[node] != BLOCKED) {
+				this.joinNeighbours(node);
+			}
+		}
+		this.dirty = false;
+	}
+
+	/**
+	 * Joins an open cell with every open cell it can move onto, including
+	 * through teleporters.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 */
+	private void joinNeighbours(int node) {
+		int mask = this.graph.getNeighbourMask(node);
+		for (int dir = 0; dir < NavGraph.DIRECTIONS; dir++) {
+			if ((mask & (1 << dir)) != 0) {
+				this.union(node, this.graph.getNeighbour(node, dir));
+			}
+		}
+	}
+
+	/**
+	 * Checks if a cell is open and in the part with the given root.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 * @param root
+	 *            the root of the part.
+	 * @return true if it is.
+	 */
+	private boolean isInPart(int node, int root) {
+		return this.parent[node] != BLOCKED && this.find(node) == root;
+	}
+
+	/**
+	 * Finds the root of the part a cell is in, halving the way to the root
+	 * as it goes so later finds are quicker.
+	 *
+	 * @param node
+	 *            the index of an open cell.
+	 * @return the index of the root.
+	 */
+	private int find(int node) {
+		while (this.parent[node] != node) {
+			this.parent[node] = this.parent[this.parent[node]];
+			node = this.parent[node];
+		}
+		return node;
+	}
+
+	/**
+	 * Joins the parts two open cells are in, hanging the smaller part off
+	 * the larger.
+	 *
+	 * @param a
+	 *            the index of the first cell.
+	 * @param b
+	 *            the index of the second cell.
+	 */
+	private void union(int a, int b) {
+		int rootA = this.find(a);
+		int rootB = this.find(b);
+		if (rootA == rootB) {
+			return;
+		}
+		if (this.size[rootA] < this.size[rootB]) {
+			int temp = rootA;
+			rootA = rootB;
+			rootB = temp;
+		}
+		this.parent[rootB] = rootA;
+		this.size[rootA] += this.size[rootB];
+	}
+}
@@ -0,0 +1,322 @@
+package application;
+
+import java.util.ArrayList;
+
+/**
+ * Lets SmartTargetingEnemies find their way around each other with
+ * windowed cooperative A* (WHCA*). Each enemy searches over cells and
+ * ticks for the next WINDOW ticks, allowed to wait as well as move, and
+ * keeps out of the cells the other enemies have reserved in the map's
+ * ReservationTable. The distance to the Player from the shared ChaseField
+ * is the H Cost, so the search heads the right way after the window ends.
+ * The plan is then reserved and followed, and only worked out again every
+ * REPLAN_INTERVAL ticks or when the enemy is pushed off it, so paths stay
+ * steady and the work each tick is bounded.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.0
+ */
+public class CooperativePlanner implements PathPlanner {
+	// How many ticks ahead a plan looks.
+	public static final int WINDOW = 16;
+	// How many ticks of a plan are followed before planning again.
+	public static final int REPLAN_INTERVAL = WINDOW / 2;
+	// The most cell and tick pairs one search may look at.
+	public static final int MAX_SEARCH_NODES = 4096;
+
+	private Enemy enemy;
+	private Map mapLevel;
+	private NavGraph graph;
+	private ChaseField field;
+	private ReservationTable reservations;
+	private int owner;
+
+	// The plan, the cell for each tick from planTick on.
+	private int[] plan;
+	private int planLength;
+	private int planTick;
+	private int planChangeCount;
+
+	// The search over cells and ticks. Each pair seen gets an id.
+	private LongIntHashMap nodeIds;
+	private int[] nodeCell;
+	private int[] nodeTime;
+	private int[] nodeParent;
+	private int nodeCount;
+	private NodeHeap openSet;
+	private long expandedCount;
+
+	/**
+	 * Creates the planner.
+	 *
+	 * @param enemy
+	 *            an instance of the Enemy.
+	 * @param player
+	 *            an instance of the Player.
+	 * @param mapLevel
+	 *            an instance of the Map.
+	 */
+	public CooperativePlanner(Enemy enemy, Character player, Map mapLevel) {
+		this.enemy = enemy;
+		this.mapLevel = mapLevel;
+		this.graph = mapLevel.getNavGraph(enemy.getSafeLevel());
+		this.field = mapLevel.getChaseField(player);
+		this.reservations = mapLevel.getReservations();
+		this.owner = this.reservations.register();
+
+		this.plan = new int[WINDOW + 1];
+		this.planLength = 0;
+		this.nodeIds = new LongIntHashMap(MAX_SEARCH_NODES);
+		this.nodeCell = new int[MAX_SEARCH_NODES];
+		this.nodeTime = new int[MAX_SEARCH_NODES];
+		this.nodeParent = new int[MAX_SEARCH_NODES];
+		this.openSet = new NodeHeap(MAX_SEARCH_NODES);
+		this.expandedCount = 0;
+	}
+
+	/**
+	 * Determines the next cell to move to, planning again if needed. If
+	 * the Player cannot be reached the enemy moves randomly.
+	 *
+	 * @return the next cell to move towards.
+	 */
+	public BasicCell getMove() {
+		int tick = this.reservations.getTick();
+		int location = this.indexOf(this.enemy.getLocation());
+		if (this.field.getDistance(this.enemy.getLocation()) == ChaseField.UNREACHABLE) {
+			this.releasePlan();
+			return this.enemy.getRandomMove();
+		}
+
+		int step = tick - this.planTick;
+		if (this.planLength == 0 || step < 0 || step >= REPLAN_INTERVAL || step + 1 >= this.planLength
+				|| this.plan[step] != location || this.graph.getChangeCount() != this.planChangeCount) {
+			this.makePlan(location, tick);
+			step = 0;
+		}
+		if (step + 1 >= this.planLength) {
+			return this.enemy.getLocation();
+		}
+		return this.getCell(this.plan[step + 1]);
+	}
+
+	/**
+	 * Gives the rest of the current plan. No search is run.
+	 *
+	 * @return the cells of the plan, starting at its end and ending at the
+	 *         Enemy.
+	 */
+	public ArrayList<BasicCell> findPath() {
+		ArrayList<BasicCell> path = new ArrayList<BasicCell>();
+		int location = this.indexOf(this.enemy.getLocation());
+		int step = this.reservations.getTick() - this.planTick;
+		for (int i = this.planLength - 1; i > step && i >= 0; i--) {
+			path.add(this.getCell(this.plan[i]));
+		}
+		if (path.isEmpty() || this.plan[Math.max(step, 0)] != location) {
+			path.clear();
+		}
+		path.add(this.enemy.getLocation());
+		return path;
+	}
+
+	/**
+	 * Gets how many cell and tick pairs this planner has expanded since it
+	 * was created.
+	 *
+	 * @return the number of expanded pairs.
+	 */
+	public long getExpandedCount() {
+		return this.expandedCount;
+	}
+
+	/**
+	 * Works out a new plan from the enemy's cell and reserves it.
+	 *
+	 * @param location
+	 *            the index of the enemy's cell.
+	 * @param tick
+	 *            the tick the plan starts at.
+	 */
+	private void makePlan(int location, int tick) {
+		this.releasePlan();
+		this.planTick = tick;
+		this.planChangeCount = this.graph.getChangeCount();
+
+		int end = this.search(location, tick);
+		int length = 0;
+		for (int node = end; node != GridPathfinder.NO_NODE; node = this.nodeParent[node]) {
+			length++;
+		}
+		this.planLength = length;
+		for (int node = end; node != GridPathfinder.NO_NODE; node = this.nodeParent[node]) {
+			this.plan[--length] = this.nodeCell[node];
+		}
+		// A plan that gets to the Player early waits there to the end of the
+		// window, so no one else plans through the cell it is waiting on.
+		// The search only stops early if the cell is free for that long.
+		int last = this.plan[this.planLength - 1];
+		while (this.planLength <= WINDOW && !this.reservations.isBlocked(last, tick + this.planLength, this.owner)) {
+			this.plan[this.planLength++] = last;
+		}
+		for (int i = 0; i < this.planLength; i++) {
+			this.reservations.reserve(this.plan[i], tick + i, this.owner);
+		}
+	}
+
+	/**
+	 * Runs A* over cells and ticks from the enemy's cell until the window
+	 * ends or the Player is reached.
+	 *
+	 * @param location
+	 *            the index of the enemy's cell.
+	 * @param tick
+	 *            the tick the search starts at.
+	 * @return the id of the pair the plan ends at.
+	 */
+	private int search(int location, int tick) {
+		this.nodeIds.clear();
+		this.openSet.clear();
+		this.nodeCount = 0;
+		int start = this.addNode(location, 0, GridPathfinder.NO_NODE);
+		int h = this.field.getDistance(location);
+		this.openSet.add(start, h, h);
+		// The pair closest to the Player that can be waited on, in case the
+		// search has to stop.
+		int best = start;
+
+		while (!this.openSet.isEmpty()) {
+			int current = this.openSet.poll();
+			int cell = this.nodeCell[current];
+			int time = this.nodeTime[current];
+			int distance = this.field.getDistance(cell);
+			if (time == WINDOW || (distance == 0 && this.isFreeFrom(cell, tick + time + 1))) {
+				return current;
+			}
+			if (distance < this.field.getDistance(this.nodeCell[best]) && this.isFreeFrom(cell, tick + time + 1)) {
+				best = current;
+			}
+			this.expandedCount++;
+
+			this.tryStep(current, cell, cell, time, tick);
+			int mask = this.graph.getNeighbourMask(cell);
+			for (int dir = 0; dir < NavGraph.DIRECTIONS; dir++) {
+				if ((mask & (1 << dir)) != 0) {
+					this.tryStep(current, cell, this.graph.getNeighbour(cell, dir), time, tick);
+				}
+			}
+			if (this.nodeCount == MAX_SEARCH_NODES) {
+				return best;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Opens the pair reached by a move or a wait, unless another enemy will
+	 * be in the way or it has been opened already. Every way to the same
+	 * pair takes the same number of ticks, so the first way found is kept.
+	 *
+	 * @param current
+	 *            the id of the pair being expanded.
+	 * @param cell
+	 *            the index of its cell.
+	 * @param next
+	 *            the index of the cell moved to, the same cell for a wait.
+	 * @param time
+	 *            the ticks from the start of the plan to the current pair.
+	 * @param tick
+	 *            the tick the plan starts at.
+	 */
+	private void tryStep(int current, int cell, int next, int time, int tick) {
+		if (this.nodeCount == MAX_SEARCH_NODES) {
+			return;
+		}
+		int h = this.field.getDistance(next);
+		if (h == ChaseField.UNREACHABLE) {
+			return;
+		}
+		if (this.reservations.isBlocked(next, tick + time + 1, this.owner)
+				|| (next != cell && this.reservations.isSwap(cell, next, tick + time, this.owner))) {
+			return;
+		}
+		long key = ((long) (time + 1) << 32) | (next & 0xFFFFFFFFL);
+		if (this.nodeIds.get(key) != LongIntHashMap.NO_VALUE) {
+			return;
+		}
+		int node = this.addNode(next, time + 1, current);
+		this.nodeIds.put(key, node);
+		this.openSet.add(node, time + 1 + h, h);
+	}
+
+	/**
+	 * Checks if no one else has reserved a cell from a tick to the end of
+	 * the window, so a plan that gets to the Player can wait there.
+	 *
+	 * @param cell
+	 *            the index of the cell.
+	 * @param from
+	 *            the first tick to check.
+	 * @return true if the cell is free until the window ends.
+	 */
+	private boolean isFreeFrom(int cell, int from) {
+		for (int t = from; t <= this.planTick + WINDOW; t++) {
+			if (this.reservations.isBlocked(cell, t, this.owner)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Records a pair of a cell and a tick.
+	 *
+	 * @param cell
+	 *            the index of the cell.
+	 * @param time
+	 *            the ticks from the start of the plan.
+	 * @param parent
+	 *            the id of the pair before it.
+	 * @return the id of the pair.
+	 */
+	private int addNode(int cell, int time, int parent) {
+		int node = this.nodeCount++;
+		this.nodeCell[node] = cell;
+		this.nodeTime[node] = time;
+		this.nodeParent[node] = parent;
+		return node;
+	}
+
+	/**
+	 * Gives up every reservation of the current plan.
+	 */
+	private void releasePlan() {
+		for (int i = 0; i < this.planLength; i++) {
+			this.reservations.release(this.plan[i], this.planTick + i, this.owner);
+		}
+		this.planLength = 0;
+	}
+
+	/**
+	 * Gets the index of a cell.
+	 *
+	 * @param cell
+	 *            the cell.
+	 * @return the index, y * width + x.
+	 */
+	private int indexOf(BasicCell cell) {
+		return cell.getY() * this.mapLevel.getMapWidth() + cell.getX();
+	}
+
+	/**
+	 * Gets the cell of the map at an index.
+	 *
+	 * @param index
+	 *            the index of the cell.
+	 * @return the cell.
+	 */
+	private BasicCell getCell(int index) {
+		int width = this.mapLevel.getMapWidth();
+		return this.mapLevel.getCell(index % width, index / width);
+	}
+}
@@ -0,0 +1,480 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * This class implements an incremental pathfinding algorithm based on
+ * Moving Target D* Lite. It searches from the enemy towards the Player and
+ * keeps its search between moves, so when the enemy steps, the Player
+ * steps or a cell of the map changes only the part of the search that is
+ * affected is repaired. A move of the Player only shifts the keys by km, as
+ * in D* Lite, and a move of the enemy only throws away the part of the
+ * search tree that is no longer below the enemy's new cell. Teleporters
+ * are followed and allowed for in the H Cost.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.3
+ */
+public class DStarLite implements PathPlanner {
+	private static final int INFINITY = Integer.MAX_VALUE / 2;
+
+	private Enemy enemy;
+	private Character player;
+	private Map mapLevel;
+	private NavGraph graph;
+	private int width;
+
+	// Distance from the enemy and its one step lookahead for every cell.
+	// The distances are measured from the cell the search started at, so
+	// after the enemy has moved they are all more by the same amount.
+	private int[] g;
+	private int[] rhs;
+	// The cell each cell is reached from in the search tree.
+	private int[] parent;
+	private NodeHeap openSet;
+	// How much the keys have shifted since the search started.
+	private int km;
+	// The bound on the distance to the Player, allowing for teleporters.
+	private TeleporterBounds bounds;
+	// Cells waiting to be taken out of the search tree.
+	private int[] queue;
+
+	private int start;
+	private int goal;
+	private int seenChangeCount;
+	private long expandedCount;
+
+	/**
+	 * This constructor method initialises class attributes.
+	 *
+	 * @param enemy
+	 *            an instance of the Enemy.
+	 * @param player
+	 *            an instance of the Player.
+	 * @param mapLevel
+	 *            an instance of the Map.
+	 */
+	public DStarLite(Enemy enemy, Character player, Map mapLevel) {
+		this.enemy = enemy;
+		this.player = player;
+		this.mapLevel = mapLevel;
+		this.graph = mapLevel.getNavGraph(enemy.getSafeLevel());
+		this.width = mapLevel.getMapWidth();
+
+		int size = this.width * mapLevel.getMapHeight();
+		this.g = new int[size];
+		this.rhs = new int[size];
+		this.parent = new int[size];
+		this.queue = new int[size];
+		this.openSet = new NodeHeap(size);
+		this.bounds = new TeleporterBounds(this.width);
+		this.expandedCount = 0;
+		this.initialise();
+	}
+
+	/**
+	 * This method determines the next cell to move to. if there is no path
+	 * to the player, the enemy moves randomly.
+	 *
+	 * @return the next cell to move towards.
+	 */
+	public BasicCell getMove() {
+		if (!this.isPlayerReachable()) {
+			return this.enemy.getRandomMove();
+		}
+		this.repair();
+
+		if (this.start == this.goal) {
+			return this.enemy.getLocation();
+		}
+		int next = this.getFirstStep();
+		if (next == GridPathfinder.NO_NODE) {
+			return this.enemy.getRandomMove();
+		}
+		return this.getCell(next);
+	}
+
+	/**
+	 * This method finds the shortest path between the Enemy and the Player.
+	 *
+	 * @return the steps to the Player, starting at the Player and ending at
+	 *         the Enemy.
+	 */
+	public ArrayList<BasicCell> findPath() {
+		ArrayList<BasicCell> path = new ArrayList<BasicCell>();
+		if (!this.isPlayerReachable()) {
+			path.add(this.enemy.getLocation());
+			return path;
+		}
+		this.repair();
+
+		if (this.getFirstStep() != GridPathfinder.NO_NODE) {
+			for (int current = this.goal; current != this.start; current = this.parent[current]) {
+				path.add(this.getCell(current));
+			}
+		}
+		path.add(this.getCell(this.start));
+		return path;
+	}
+
+	/**
+	 * Gets how many cells this planner has expanded since it was created.
+	 *
+	 * @return the number of expanded cells.
+	 */
+	public long getExpandedCount() {
+		return this.expandedCount;
+	}
+
+	/**
+	 * Checks if the Player is in a part of the map the enemy can reach, so
+	 * the search is not run when it could never succeed.
+	 *
+	 * @return true if the Player can be reached.
+	 */
+	private boolean isPlayerReachable() {
+		int enemyNode = this.indexOf(this.enemy.getLocation());
+		int playerNode = this.indexOf(this.player.getLocation());
+		return this.mapLevel.getComponents(this.enemy.getSafeLevel()).isConnected(enemyNode, playerNode);
+	}
+
+	/**
+	 * Starts the search again from nothing.
+	 */
+	private void initialise() {
+		Arrays.fill(this.g, INFINITY);
+		Arrays.fill(this.rhs, INFINITY);
+		Arrays.fill(this.parent, GridPathfinder.NO_NODE);
+		this.openSet.clear();
+		this.km = 0;
+		this.start = this.indexOf(this.enemy.getLocation());
+		this.goal = this.indexOf(this.player.getLocation());
+		this.bounds.setTarget(this.graph, this.goal);
+		this.seenChangeCount = this.graph.getChangeCount();
+
+		this.rhs[this.start] = 0;
+		this.openSet.add(this.start, this.calculateHCost(this.start), 0);
+	}
+
+	/**
+	 * Brings the search up to date with the enemy, the Player and the map
+	 * and finishes the search for the Player's cell.
+	 */
+	private void repair() {
+		int changes = this.graph.getChangeCount();
+		int newStart = this.indexOf(this.enemy.getLocation());
+		if (changes != this.seenChangeCount && !this.graph.isLogged(this.seenChangeCount)) {
+			this.initialise();
+		} else if (newStart != this.start) {
+			if (this.parent[newStart] != this.start || this.g[newStart] >= INFINITY) {
+				// The enemy did not follow the search tree, so it cannot be
+				// kept.
+				this.initialise();
+			} else {
+				this.moveStart(newStart);
+			}
+		}
+
+		int newGoal = this.indexOf(this.player.getLocation());
+		if (newGoal != this.goal) {
+			// The bounds still measure to the last cell the Player was on.
+			this.km += this.bounds.getHCost(newGoal);
+			this.bounds.setTarget(this.graph, newGoal);
+			this.goal = newGoal;
+		}
+
+		for (int change = this.seenChangeCount; change < changes; change++) {
+			int node = this.graph.getChangedNode(change);
+			this.updateRhs(node);
+			for (int dir = 0; dir < NavGraph.DIRECTIONS; dir++) {
+				int neighbour = this.getNeighbour(node, dir);
+				if (neighbour != GridPathfinder.NO_NODE) {
+					this.updateRhs(neighbour);
+				}
+			}
+		}
+		this.seenChangeCount = changes;
+
+		this.computeShortestPath();
+	}
+
+	/**
+	 * Makes the cell the enemy has stepped onto the root of the search. The
+	 * part of the search tree below it is kept as it is, as its distances
+	 * are all one more than from the new root. The rest of the tree is
+	 * thrown away, and each cell in it is then given the best distance its
+	 * neighbours in the kept part of the tree offer.
+	 *
+	 * @param newStart
+	 *            the index of the enemy's new cell, a child of the old one.
+	 */
+	private void moveStart(int newStart) {
+		int oldStart = this.start;
+		this.start = newStart;
+		this.parent[newStart] = GridPathfinder.NO_NODE;
+
+		// Walk the old tree from its root without going below the new root.
+		int head = 0;
+		int tail = 0;
+		this.queue[tail++] = oldStart;
+		while (head < tail) {
+			int node = this.queue[head++];
+			int mask = this.graph.getNeighbourMask(node);
+			for (int dir = 0; dir < NavGraph.DIRECTIONS; dir++) {
+				if ((mask & (1 << dir)) != 0) {
+					int child = this.graph.getNeighbour(node, dir);
+					if (child != newStart && this.parent[child] == node) {
+						// Cleared straight away so no cell is queued twice.
+						this.parent[child] = GridPathfinder.NO_NODE;
+						this.queue[tail++] = child;
+					}
+				}
+			}
+		}
+		for (int i = 0; i < tail; i++) {
+			int node = this.queue[i];
+			this.g[node] = INFINITY;
+			this.rhs[node] = INFINITY;
+			this.openSet.remove(node);
+		}
+		for (int i = 0; i < tail; i++) {
+			int node = this.queue[i];
+			this.setBestPredecessor(node);
+			if (this.rhs[node] < INFINITY) {
+				this.openSet.add(node, this.calculateKey(node), this.calculateTie(node));
+			}
+		}
+	}
+
+	/**
+	 * Expands cells until the Player's cell is consistent and nothing in
+	 * the open set could still improve it.
+	 */
+	private void computeShortestPath() {
+		while (!this.openSet.isEmpty()) {
+			int u = this.openSet.peek();
+			float oldKey = this.openSet.getPriority(u);
+			int oldTie = this.openSet.getTieBreak(u);
+
+			if (!this.isKeyBefore(oldKey, oldTie, this.calculateKey(this.goal), this.calculateTie(this.goal))
+					&& this.rhs[this.goal] == this.g[this.goal]) {
+				return;
+			}
+
+			float newKey = this.calculateKey(u);
+			int newTie = this.calculateTie(u);
+			this.expandedCount++;
+
+			if (this.isKeyBefore(oldKey, oldTie, newKey, newTie)) {
+				this.openSet.update(u, newKey, newTie);
+			} else if (this.g[u] > this.rhs[u]) {
+				this.g[u] = this.rhs[u];
+				this.openSet.remove(u);
+				int mask = this.graph.getNeighbourMask(u);
+				for (int dir = 0; dir < NavGraph.DIRECTIONS; dir++) {
+					if ((mask & (1 << dir)) != 0) {
+						int next = this.graph.getNeighbour(u, dir);
+						if (next != this.start && this.rhs[next] > this.g[u] + 1) {
+							this.parent[next] = u;
+							this.rhs[next] = this.g[u] + 1;
+							this.updateState(next);
+						}
+					}
+				}
+			} else {
+				this.g[u] = INFINITY;
+				int mask = this.graph.getNeighbourMask(u);
+				for (int dir = 0; dir < NavGraph.DIRECTIONS; dir++) {
+					if ((mask & (1 << dir)) != 0) {
+						int next = this.graph.getNeighbour(u, dir);
+						if (next != this.start && this.parent[next] == u) {
+							this.updateRhs(next);
+						}
+					}
+				}
+				this.updateRhs(u);
+			}
+		}
+	}
+
+	/**
+	 * Recalculates the lookahead value of a cell from the cells that can
+	 * step onto it and puts it in the open set if it is not consistent.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 */
+	private void updateRhs(int node) {
+		if (node != this.start) {
+			this.setBestPredecessor(node);
+		}
+		this.updateState(node);
+	}
+
+	/**
+	 * Puts a cell in the open set if it is not consistent, and takes it out
+	 * if it is.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 */
+	private void updateState(int node) {
+		this.openSet.remove(node);
+		if (this.g[node] != this.rhs[node]) {
+			this.openSet.add(node, this.calculateKey(node), this.calculateTie(node));
+		}
+	}
+
+	/**
+	 * Sets the lookahead value and parent of a cell from the cell that can
+	 * step onto it and is closest to the enemy.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 */
+	private void setBestPredecessor(int node) {
+		int best = INFINITY;
+		int bestParent = GridPathfinder.NO_NODE;
+		if (this.graph.isOpen(node)) {
+			int mask = this.graph.getNeighbourMask(node);
+			for (int dir = 0; dir < NavGraph.DIRECTIONS; dir++) {
+				if ((mask & (1 << dir)) != 0) {
+					int neighbour = this.graph.getNeighbour(node, dir);
+					if (this.graph.canMove(neighbour, (dir + 2) % NavGraph.DIRECTIONS)
+							&& this.g[neighbour] + 1 < best) {
+						best = this.g[neighbour] + 1;
+						bestParent = neighbour;
+					}
+				}
+			}
+		}
+		this.rhs[node] = best;
+		this.parent[node] = bestParent;
+	}
+
+	/**
+	 * Finds the cell after the enemy's on the way to the Player, by
+	 * following the search tree back from the Player.
+	 *
+	 * @return the index of the cell, or NO_NODE if the Player cannot be
+	 *         reached.
+	 */
+	private int getFirstStep() {
+		if (this.g[this.goal] >= INFINITY) {
+			return GridPathfinder.NO_NODE;
+		}
+		int current = this.goal;
+		for (int step = 0; step < this.queue.length; step++) {
+			int next = this.parent[current];
+			if (next == this.start) {
+				return current;
+			}
+			if (next == GridPathfinder.NO_NODE) {
+				return GridPathfinder.NO_NODE;
+			}
+			current = next;
+		}
+		return GridPathfinder.NO_NODE;
+	}
+
+	/**
+	 * Calculates the first part of the key of a cell.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 * @return the key.
+	 */
+	private float calculateKey(int node) {
+		int m = Math.min(this.g[node], this.rhs[node]);
+		if (m >= INFINITY) {
+			return INFINITY;
+		}
+		return m + this.calculateHCost(node) + this.km;
+	}
+
+	/**
+	 * Calculates the second part of the key of a cell, used to break ties.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 * @return the tie break value.
+	 */
+	private int calculateTie(int node) {
+		return Math.min(this.g[node], this.rhs[node]);
+	}
+
+	/**
+	 * Compares two keys.
+	 *
+	 * @param key1
+	 *            the first part of the first key.
+	 * @param tie1
+	 *            the second part of the first key.
+	 * @param key2
+	 *            the first part of the second key.
+	 * @param tie2
+	 *            the second part of the second key.
+	 * @return true if the first key comes strictly before the second.
+	 */
+	private boolean isKeyBefore(float key1, int tie1, float key2, int tie2) {
+		if (key1 != key2) {
+			return key1 < key2;
+		}
+		return tie1 < tie2;
+	}
+
+	/**
+	 * Calculates the H Cost of a cell, a bound on its distance to the
+	 * Player.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 * @return the H Cost.
+	 */
+	private int calculateHCost(int node) {
+		return this.bounds.getHCost(node);
+	}
+
+	/**
+	 * Gets the neighbour of a cell in a direction if it is on the map.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 * @param dir
+	 *            the direction.
+	 * @return the index of the neighbour, or NO_NODE.
+	 */
+	private int getNeighbour(int node, int dir) {
+		int x = node % this.width + (dir == Character.DIRECTION_RIGHT ? 1 : 0)
+				- (dir == Character.DIRECTION_LEFT ? 1 : 0);
+		int y = node / this.width + (dir == Character.DIRECTION_DOWN ? 1 : 0)
+				- (dir == Character.DIRECTION_UP ? 1 : 0);
+		if (x < 0 || y < 0 || x >= this.width || y >= this.mapLevel.getMapHeight()) {
+			return GridPathfinder.NO_NODE;
+		}
+		return y * this.width + x;
+	}
+
+	/**
+	 * Gets the index of a cell.
+	 *
+	 * @param cell
+	 *            the cell.
+	 * @return the index, y * width + x.
+	 */
+	private int indexOf(BasicCell cell) {
+		return cell.getY() * this.width + cell.getX();
+	}
+
+	/**
+	 * Gets the cell of the map at an index.
+	 *
+	 * @param index
+	 *            the index of the cell.
+	 * @return the cell.
+	 */
+	private BasicCell getCell(int index) {
+		return this.mapLevel.getCell(index % this.width, index / this.width);
+	}
+}
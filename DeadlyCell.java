@@ -7,7 +7,7 @@ import javafx.scene.image.Image;
  * A cell that kills the player if they do not have the required item to pass.
  * 
  * @author William Conroy
- * @version 1.3
+ * @version 1.5
  */
 public class DeadlyCell extends BasicCell {
 	
@@ -30,29 +30,57 @@ public class DeadlyCell extends BasicCell {
 	 * @param isWater determine if water or wind cell
 	 */
 	DeadlyCell(int x, int y, boolean isWater) {
+		this(x, y, isWater, true);
+	}
+
+	/**
+	 * Constructs a deadly cell, only resetting the safe level of all 
+	 * cells of its kind if asked to.
+	 * 
+	 * @param x       x-value position of the cell on the map
+	 * @param y       y-value position of the cell on the map
+	 * @param isWater determine if water or wind cell
+	 * @param reset   true to make all cells of its kind deadly again
+	 */
+	private DeadlyCell(int x, int y, boolean isWater, boolean reset) {
 		super(2, x, y);
 		this.isWater = isWater;
 
 		// Sets the safe level for water or wind cell.
-		if (this.isWater) {
+		if (reset && this.isWater) {
 			setGlobalSafeLevelWater(2);
-		} else {
+		} else if (reset) {
 			setGlobalSafeLevelWind(2);
 		}
 	}
 
+	/**
+	 * Makes a deadly cell for a tile already on the map, which leaves the 
+	 * safe level of all water and wind cells as it is.
+	 * 
+	 * @param x       x-value position of the cell on the map
+	 * @param y       y-value position of the cell on the map
+	 * @param isWater determine if water or wind cell
+	 * @return the cell
+	 */
+	static DeadlyCell view(int x, int y, boolean isWater) {
+		return new DeadlyCell(x, y, isWater, false);
+	}
+
 	/**
 	 * Draw the cell onto the gc.
 	 * 
 	 * @param gc The graphics context.
+	 * @param x The x position to draw it at.
+	 * @param y The y position to draw it at.
 	 */
-	public void draw(GraphicsContext gc) {
+	public void drawAt(GraphicsContext gc, int x, int y) {
 		
 		// Check if water or wind cell and draws the correct image.
 		if (isWater) {
-			gc.drawImage(WATER_IMAGE, positionX * size, positionY * size);
+			gc.drawImage(WATER_IMAGE, x * size, y * size);
 		} else {
-			gc.drawImage(WIND_IMAGE, positionX * size, positionY * size);
+			gc.drawImage(WIND_IMAGE, x * size, y * size);
 		}
 	}
 
@@ -32,7 +32,8 @@ public class Enemy extends Character {
 	 * Get the adjacent cell for a direction.
 	 * 
 	 * @param dir The direction in which you want the cell
-	 * @return the cell in that direction.
+	 * @return the cell in that direction, which is a wall if it is off the
+	 * map.
 	 */
 	protected BasicCell getCell(int dir) {
 
@@ -52,6 +53,26 @@ public class Enemy extends Character {
 
 	}
 
+	/**
+	 * Picks a random adjacent cell the enemy can move onto.
+	 * 
+	 * @return the chosen cell, or the current location if the enemy is 
+	 * boxed in.
+	 */
+	protected BasicCell getRandomMove() {
+		int mask = map.getPassableMask(location.getX(), location.getY(), this.safeLevel);
+		int count = Integer.bitCount(mask);
+
+		if (count == 0) {
+			return this.location;
+		}
+		// Skip past the set bits before the chosen one.
+		for (int skip = (int) (Math.random() * count); skip > 0; skip--) {
+			mask &= mask - 1;
+		}
+		return this.getCell(Integer.numberOfTrailingZeros(mask));
+	}
+
 	/**
 	 * Creates and sets all images need to display the enemy.
 	 * 
@@ -7,7 +7,7 @@ import javafx.scene.image.Image;
  * Goal cell for each level to progress the player to the next level.
  * 
  * @author William Conroy
- * @version 1.0
+ * @version 1.1
  *
  */
 
@@ -28,9 +28,11 @@ public class GoalCell extends BasicCell {
 	/**
 	 * Draws the goal cell onto the map.
 	 * @param gc The Graphics Context.
+	 * @param x The x position to draw it at.
+	 * @param y The y position to draw it at.
 	 */
-	public void draw(GraphicsContext gc) {
-		gc.drawImage(GOAL_IMAGE, positionX * size, positionY * size);
+	public void drawAt(GraphicsContext gc, int x, int y) {
+		gc.drawImage(GOAL_IMAGE, x * size, y * size);
 	}
 
 }
@@ -0,0 +1,1051 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * A pathfinding engine based on the A* algorithm that keeps all of its data
+ * in flat primitive arrays indexed by y * width + x. The arrays are created
+ * once for a map and reused by every search; instead of clearing them a
+ * generation number is stamped on each node that a search touches, so a
+ * node with an old stamp is treated as unvisited.
+ *
+ * Cells far apart are searched from both ends at once instead, which
+ * keeps the frontiers smaller on long winding levels.
+ *
+ * Every step costs 1 and movement is in four directions, so costs are kept
+ * as whole numbers and the H Cost is the Manhattan distance, or the bound
+ * from the map's landmarks when they are ready, worked out once when a
+ * node is first touched. Both never overestimate and never drop by more
+ * than a step costs, so a closed node is never opened again.
+ *
+ * On maps with teleporters the Manhattan distance is replaced by the bound
+ * from TeleporterBounds, which allows for the teleporters, and jump point
+ * search is not used since it only looks along straight lines.
+ *
+ * The same search can be run on a NavSnapshot instead of the map, so
+ * worker threads can each keep an engine of their own.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.9
+ */
+public class GridPathfinder {
+	public static final int NO_NODE = -1;
+	public static final int UNLIMITED = -1;
+	// What a search with a budget can report.
+	public static final int FOUND = 0;
+	public static final int NO_PATH = 1;
+	public static final int PAUSED = 2;
+	// Values above 1 find paths faster but no longer always the shortest.
+	public static final int H_WEIGHT_MULT = 1;
+
+	// Searches between cells further apart than this are run from both ends.
+	public static final int BIDIRECTIONAL_DISTANCE = 48;
+
+	private static final byte OPEN = 1;
+	private static final byte CLOSED = 2;
+	private static final int NO_MEETING = Integer.MAX_VALUE;
+
+	private Map mapLevel;
+	private int width;
+
+	// Per node search data, only valid when stamp equals generation.
+	private int[] gCost;
+	private int[] hCost;
+	private int[] parent;
+	private byte[] state;
+	private int[] stamp;
+	private int generation;
+
+	private NodeHeap openSet;
+
+	// The last path found, from start to goal.
+	private int[] path;
+	private int pathLength;
+	private int expandedCount;
+
+	// Recent results, so repeated searches are not run again.
+	private PathCache cache;
+
+	// The search in progress, which may be paused between ticks.
+	private Object searchOwner;
+	private int searchStart;
+	private int searchGoal;
+	private int searchSafeLevel;
+	private boolean searchJump;
+	// If the search is really using jump points.
+	private boolean jumping;
+	private boolean searchBidirectional;
+	private int searchVersion;
+	private SearchGraph searchGraph;
+	// The landmark tables the search uses for its H Cost, or null.
+	private LandmarkTables searchLandmarks;
+	// The bounds to the goal and to the start allowing for teleporters.
+	private TeleporterBounds goalBounds;
+	private TeleporterBounds startBounds;
+
+	// The search back from the goal of a search from both ends, made when
+	// first needed. The search from the start uses the arrays above.
+	private int[] gCostBack;
+	private int[] parentBack;
+	private NodeHeap backwardSet;
+	// The lowest F Cost left on each side.
+	private int forwardBound;
+	private int backwardBound;
+	// The best place found so far where the two searches meet.
+	private int meetNode;
+	private int meetCost;
+
+	// How many cells searches may expand per tick, and how many are left.
+	private int tickBudget;
+	private int remainingBudget;
+
+	/**
+	 * Creates the engine and its arrays for a map.
+	 *
+	 * @param mapLevel
+	 *            the map to search.
+	 */
+	public GridPathfinder(Map mapLevel) {
+		this(mapLevel.getMapWidth(), mapLevel.getMapHeight());
+		this.mapLevel = mapLevel;
+		this.cache = new PathCache();
+	}
+
+	/**
+	 * Creates an engine that is not tied to a map, for a worker thread to
+	 * search snapshots with. Only the snapshot findPath() and the methods
+	 * reading its result can be used.
+	 *
+	 * @param width
+	 *            the width of the maps to search.
+	 * @param height
+	 *            the height of the maps to search.
+	 */
+	public GridPathfinder(int width, int height) {
+		this.width = width;
+
+		int size = width * height;
+		this.gCost = new int[size];
+		this.hCost = new int[size];
+		this.parent = new int[size];
+		this.state = new byte[size];
+		this.stamp = new int[size];
+		this.generation = 0;
+		this.openSet = new NodeHeap(size);
+		this.path = new int[size];
+		this.pathLength = 0;
+		this.goalBounds = new TeleporterBounds(this.width);
+		this.startBounds = new TeleporterBounds(this.width);
+		this.tickBudget = UNLIMITED;
+		this.remainingBudget = UNLIMITED;
+	}
+
+	/**
+	 * Finds the shortest path between two cells that only goes over cells a
+	 * character with the given safe level can move onto. The same search on
+	 * an unchanged map is answered from the cache.
+	 *
+	 * @param start
+	 *            the index of the starting cell.
+	 * @param goal
+	 *            the index of the cell to reach.
+	 * @param safeLevel
+	 *            the safe level of the character that is moving.
+	 * @return true if a path was found.
+	 */
+	public boolean findPath(int start, int goal, int safeLevel) {
+		return this.findPath(start, goal, safeLevel, false);
+	}
+
+	/**
+	 * Finds the shortest path between two cells that only goes over cells a
+	 * character with the given safe level can move onto, either with plain
+	 * A* or with jump point search. Both find a shortest path so they share
+	 * the cache. A goal in a part of the map the start is not connected to
+	 * is turned down without searching. The search runs to the end whatever
+	 * the budget, and a search paused by requestPath is given up.
+	 *
+	 * @param start
+	 *            the index of the starting cell.
+	 * @param goal
+	 *            the index of the cell to reach.
+	 * @param safeLevel
+	 *            the safe level of the character that is moving.
+	 * @param jumpPoints
+	 *            true to use jump point search.
+	 * @return true if a path was found.
+	 */
+	public boolean findPath(int start, int goal, int safeLevel, boolean jumpPoints) {
+		int version = this.mapLevel.getVersion();
+		int cached = this.cache.lookup(start, goal, safeLevel, version, this.path);
+		if (cached != PathCache.MISS) {
+			this.pathLength = cached;
+			this.expandedCount = 0;
+			return cached > 0;
+		}
+		if (!this.mapLevel.getComponents(safeLevel).isConnected(start, goal)) {
+			this.pathLength = 0;
+			this.expandedCount = 0;
+			return false;
+		}
+
+		this.beginSearch(null, start, goal, safeLevel, jumpPoints, version);
+		int status = this.runSearch(Integer.MAX_VALUE);
+		this.finishSearch();
+		return status == FOUND;
+	}
+
+	/**
+	 * Finds the shortest path between two cells without expanding more
+	 * cells than are left in this tick's budget. A search that runs out of
+	 * budget is paused and carries on the next time the same owner asks.
+	 * Only one search can be paused at a time, so while it belongs to
+	 * someone else only the cache is checked.
+	 *
+	 * When a resumed search finishes, the path found starts where the owner
+	 * was when the search began, not where it is now.
+	 *
+	 * @param owner
+	 *            the object the search is being run for.
+	 * @param start
+	 *            the index of the starting cell.
+	 * @param goal
+	 *            the index of the cell to reach.
+	 * @param safeLevel
+	 *            the safe level of the character that is moving.
+	 * @param jumpPoints
+	 *            true to use jump point search.
+	 * @return FOUND, NO_PATH, or PAUSED if there is no result yet.
+	 */
+	public int requestPath(Object owner, int start, int goal, int safeLevel, boolean jumpPoints) {
+		int version = this.mapLevel.getVersion();
+		int cached = this.cache.lookup(start, goal, safeLevel, version, this.path);
+		if (cached != PathCache.MISS) {
+			this.pathLength = cached;
+			this.expandedCount = 0;
+			return cached > 0 ? FOUND : NO_PATH;
+		}
+
+		this.expandedCount = 0;
+		if (!this.mapLevel.getComponents(safeLevel).isConnected(start, goal)) {
+			this.pathLength = 0;
+			if (this.searchOwner == owner) {
+				this.searchOwner = null;
+			}
+			return NO_PATH;
+		}
+		if (this.searchOwner != null && this.searchOwner != owner) {
+			return PAUSED;
+		}
+
+		// A paused search is only carried on if the map has not changed
+		// since it began.
+		boolean resume = this.searchOwner == owner && this.searchVersion == version
+				&& this.searchSafeLevel == safeLevel && this.searchJump == jumpPoints;
+		if (!resume) {
+			this.searchOwner = null;
+			if (this.remainingBudget == 0) {
+				return PAUSED;
+			}
+			this.beginSearch(owner, start, goal, safeLevel, jumpPoints, version);
+		}
+
+		int limit = this.tickBudget == UNLIMITED ? Integer.MAX_VALUE : this.remainingBudget;
+		int status = this.runSearch(limit);
+		if (this.tickBudget != UNLIMITED) {
+			this.remainingBudget -= this.expandedCount;
+		}
+		if (status != PAUSED) {
+			this.finishSearch();
+		}
+		return status;
+	}
+
+	/**
+	 * Finds the shortest path between two cells of a snapshot of the
+	 * navigation graph, with the same search findPath() runs on the map,
+	 * without expanding more than a given number of cells. The cache and
+	 * the budget are not used, and a search that reaches the limit is given
+	 * up, as the snapshot will be out of date by the time it could carry
+	 * on. The path is read with getPathLength() and getPathNode().
+	 *
+	 * @param snapshot
+	 *            the snapshot to search.
+	 * @param landmarks
+	 *            the landmark tables for the map the snapshot was taken
+	 *            from, or null.
+	 * @param start
+	 *            the index of the starting cell.
+	 * @param goal
+	 *            the index of the cell to reach.
+	 * @param limit
+	 *            the most cells the search may expand.
+	 * @return FOUND, NO_PATH, or PAUSED if the limit was reached first.
+	 */
+	public int findPath(NavSnapshot snapshot, LandmarkTables landmarks, int start, int goal, int limit) {
+		this.searchOwner = null;
+		this.startSearch(snapshot, landmarks, start, goal, false);
+		return this.runSearch(limit);
+	}
+
+	/**
+	 * Sets how many cells searches started with requestPath may expand in
+	 * one tick, all owners together.
+	 *
+	 * @param tickBudget
+	 *            the number of cells, or UNLIMITED.
+	 */
+	public void setTickBudget(int tickBudget) {
+		this.tickBudget = tickBudget;
+		this.remainingBudget = tickBudget;
+	}
+
+	/**
+	 * Gets how many cells searches may expand in one tick.
+	 *
+	 * @return the number of cells, or UNLIMITED.
+	 */
+	public int getTickBudget() {
+		return this.tickBudget;
+	}
+
+	/**
+	 * Gets how many cells are left in this tick's budget.
+	 *
+	 * @return the number of cells, or UNLIMITED.
+	 */
+	public int getRemainingBudget() {
+		return this.remainingBudget;
+	}
+
+	/**
+	 * Takes cells expanded by searches run elsewhere, such as on other
+	 * threads, out of this tick's budget.
+	 *
+	 * @param cells
+	 *            the number of cells expanded.
+	 */
+	public void spendBudget(int cells) {
+		if (this.tickBudget != UNLIMITED) {
+			this.remainingBudget = Math.max(0, this.remainingBudget - cells);
+		}
+	}
+
+	/**
+	 * Starts a new tick, giving searches their full budget again.
+	 */
+	public void startTick() {
+		this.remainingBudget = this.tickBudget;
+	}
+
+	/**
+	 * Gets the cache of recent results.
+	 *
+	 * @return the cache.
+	 */
+	public PathCache getCache() {
+		return this.cache;
+	}
+
+	/**
+	 * Sets up a new search between two cells.
+	 *
+	 * @param owner
+	 *            the object the search is being run for, or null.
+	 * @param start
+	 *            the index of the starting cell.
+	 * @param goal
+	 *            the index of the cell to reach.
+	 * @param safeLevel
+	 *            the safe level of the character that is moving.
+	 * @param jumpPoints
+	 *            true to use jump point search.
+	 * @param version
+	 *            the version of the map the search is run on.
+	 */
+	private void beginSearch(Object owner, int start, int goal, int safeLevel, boolean jumpPoints,
+			int version) {
+		this.searchOwner = owner;
+		this.searchSafeLevel = safeLevel;
+		this.searchJump = jumpPoints;
+		this.searchVersion = version;
+		this.startSearch(this.mapLevel.getNavGraph(safeLevel), this.mapLevel.getLandmarks(safeLevel).getTables(),
+				start, goal, jumpPoints);
+	}
+
+	/**
+	 * Clears the search data and opens the start, and the goal too for a
+	 * search from both ends.
+	 *
+	 * @param graph
+	 *            the navigation graph or snapshot to search.
+	 * @param landmarks
+	 *            the landmark tables to use for the H Cost, or null.
+	 * @param start
+	 *            the index of the starting cell.
+	 * @param goal
+	 *            the index of the cell to reach.
+	 * @param jumpPoints
+	 *            true to use jump point search.
+	 */
+	private void startSearch(SearchGraph graph, LandmarkTables landmarks, int start, int goal,
+			boolean jumpPoints) {
+		this.nextGeneration();
+		this.openSet.clear();
+		this.pathLength = 0;
+
+		this.searchStart = start;
+		this.searchGoal = goal;
+		this.searchGraph = graph;
+		this.searchLandmarks = landmarks;
+		this.jumping = jumpPoints && this.searchGraph.getTeleporterCount() == 0;
+		this.searchBidirectional = !this.jumping && this.calculateDistance(start, goal) > BIDIRECTIONAL_DISTANCE;
+		this.goalBounds.setTarget(this.searchGraph, goal);
+		if (this.searchBidirectional) {
+			this.startBounds.setTarget(this.searchGraph, start);
+		}
+
+		if (this.searchBidirectional) {
+			this.beginBidirectional(start, goal);
+		} else {
+			this.touch(start, 0, NO_NODE, goal);
+			this.openSet.add(start, this.hCost[start], this.hCost[start]);
+		}
+	}
+
+	/**
+	 * Sets up an A* search run from both the start and the goal.
+	 *
+	 * @param start
+	 *            the index of the starting cell.
+	 * @param goal
+	 *            the index of the cell to reach.
+	 */
+	private void beginBidirectional(int start, int goal) {
+		if (this.backwardSet == null) {
+			this.gCostBack = new int[this.path.length];
+			this.parentBack = new int[this.path.length];
+			this.backwardSet = new NodeHeap(this.path.length);
+		}
+		this.backwardSet.clear();
+		int distance = this.calculateHCost(start, goal);
+
+		this.reach(start);
+		this.gCost[start] = 0;
+		this.openSet.add(start, distance, distance);
+		this.reach(goal);
+		this.gCostBack[goal] = 0;
+		this.backwardSet.add(goal, distance, distance);
+
+		this.forwardBound = distance;
+		this.backwardBound = distance;
+		this.meetNode = NO_NODE;
+		this.meetCost = NO_MEETING;
+	}
+
+	/**
+	 * Ends the current search and stores its result in the cache.
+	 */
+	private void finishSearch() {
+		this.searchOwner = null;
+		this.cache.store(this.searchStart, this.searchGoal, this.searchSafeLevel, this.searchVersion, this.path,
+				this.pathLength);
+	}
+
+	/**
+	 * Carries on the current search until it finishes or has expanded as
+	 * many cells as it is allowed.
+	 *
+	 * @param limit
+	 *            the most cells to expand.
+	 * @return FOUND, NO_PATH, or PAUSED if the limit was reached first.
+	 */
+	private int runSearch(int limit) {
+		this.expandedCount = 0;
+		if (this.searchBidirectional) {
+			return this.runBidirectional(limit);
+		}
+		int goal = this.searchGoal;
+
+		while (!this.openSet.isEmpty()) {
+			if (this.expandedCount >= limit) {
+				return PAUSED;
+			}
+			int current = this.openSet.poll();
+
+			if (current == goal) {
+				if (this.jumping) {
+					this.buildJumpPath(goal);
+				} else {
+					this.buildPath(goal);
+				}
+				return FOUND;
+			}
+
+			this.state[current] = CLOSED;
+			this.expandedCount++;
+
+			if (this.jumping) {
+				this.expandJumpPoint(current, goal);
+			} else {
+				this.expand(current, goal);
+			}
+		}
+
+		return NO_PATH;
+	}
+
+	/**
+	 * Carries on a search from both ends, based on NBA*. The side with the
+	 * smaller open set is expanded each time. A cell is not expanded if it
+	 * could not be on a path shorter than the best meeting found so far,
+	 * judged by its F Cost or by its G Cost plus the lowest F Cost left on
+	 * the other side less its H Cost from there. When either side runs out
+	 * of cells the best meeting is a shortest path.
+	 *
+	 * @param limit
+	 *            the most cells to expand.
+	 * @return FOUND, NO_PATH, or PAUSED if the limit was reached first.
+	 */
+	private int runBidirectional(int limit) {
+		while (!this.openSet.isEmpty() && !this.backwardSet.isEmpty()) {
+			if (this.expandedCount >= limit) {
+				return PAUSED;
+			}
+			if (this.openSet.size() <= this.backwardSet.size()) {
+				this.expandForward();
+			} else {
+				this.expandBackward();
+			}
+		}
+
+		if (this.meetCost == NO_MEETING) {
+			return NO_PATH;
+		}
+		this.buildMeetingPath();
+		return FOUND;
+	}
+
+	/**
+	 * Takes the next cell from the search from the start and expands it
+	 * unless it can be ruled out.
+	 */
+	private void expandForward() {
+		int current = this.openSet.poll();
+		int start = this.searchStart;
+		int goal = this.searchGoal;
+
+		if (this.state[current] != CLOSED && this.gCost[current] + this.calculateHCost(current, goal) < this.meetCost
+				&& this.gCost[current] + this.backwardBound - this.calculateHCost(current, start) < this.meetCost) {
+			this.expandedCount++;
+			int mask = this.searchGraph.getNeighbourMask(current);
+			for (int dir = 0; dir < NavGraph.DIRECTIONS; dir++) {
+				if ((mask & (1 << dir)) == 0) {
+					continue;
+				}
+				int neighbour = this.searchGraph.getNeighbour(current, dir);
+				this.reach(neighbour);
+				int tempGCost = this.gCost[current] + 1;
+				if (this.state[neighbour] == CLOSED || tempGCost >= this.gCost[neighbour]) {
+					continue;
+				}
+
+				this.gCost[neighbour] = tempGCost;
+				this.parent[neighbour] = current;
+				int h = this.calculateHCost(neighbour, goal);
+				if (this.openSet.contains(neighbour)) {
+					this.openSet.decreaseKey(neighbour, tempGCost + h);
+				} else {
+					this.openSet.add(neighbour, tempGCost + h, h);
+				}
+				this.meet(neighbour);
+			}
+		}
+		this.state[current] = CLOSED;
+
+		if (!this.openSet.isEmpty()) {
+			this.forwardBound = (int) this.openSet.getPriority(this.openSet.peek());
+		}
+	}
+
+	/**
+	 * Takes the next cell from the search from the goal and expands it
+	 * unless it can be ruled out. The cells looked at are the ones that
+	 * can step onto it.
+	 */
+	private void expandBackward() {
+		int current = this.backwardSet.poll();
+		int start = this.searchStart;
+		int goal = this.searchGoal;
+
+		if (this.state[current] != CLOSED
+				&& this.gCostBack[current] + this.calculateHCost(current, start) < this.meetCost
+				&& this.gCostBack[current] + this.forwardBound - this.calculateHCost(current, goal) < this.meetCost) {
+			this.expandedCount++;
+			int mask = this.searchGraph.getNeighbourMask(current);
+			for (int dir = 0; dir < NavGraph.DIRECTIONS; dir++) {
+				if ((mask & (1 << dir)) == 0) {
+					continue;
+				}
+				int neighbour = this.searchGraph.getNeighbour(current, dir);
+				if (!this.searchGraph.canMove(neighbour, (dir + 2) % NavGraph.DIRECTIONS)) {
+					continue;
+				}
+				this.reach(neighbour);
+				int tempGCost = this.gCostBack[current] + 1;
+				if (this.state[neighbour] == CLOSED || tempGCost >= this.gCostBack[neighbour]) {
+					continue;
+				}
+
+				this.gCostBack[neighbour] = tempGCost;
+				this.parentBack[neighbour] = current;
+				int h = this.calculateHCost(neighbour, start);
+				if (this.backwardSet.contains(neighbour)) {
+					this.backwardSet.decreaseKey(neighbour, tempGCost + h);
+				} else {
+					this.backwardSet.add(neighbour, tempGCost + h, h);
+				}
+				this.meet(neighbour);
+			}
+		}
+		this.state[current] = CLOSED;
+
+		if (!this.backwardSet.isEmpty()) {
+			this.backwardBound = (int) this.backwardSet.getPriority(this.backwardSet.peek());
+		}
+	}
+
+	/**
+	 * Records a cell reached by both searches if the path through it is
+	 * shorter than any found so far.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 */
+	private void meet(int node) {
+		if (this.gCost[node] == NO_MEETING || this.gCostBack[node] == NO_MEETING) {
+			return;
+		}
+		int cost = this.gCost[node] + this.gCostBack[node];
+		if (cost < this.meetCost) {
+			this.meetCost = cost;
+			this.meetNode = node;
+		}
+	}
+
+	/**
+	 * Marks a node as touched by the current search from both ends, with
+	 * neither side having reached it yet.
+	 *
+	 * @param node
+	 *            the index of the node.
+	 */
+	private void reach(int node) {
+		if (this.stamp[node] != this.generation) {
+			this.stamp[node] = this.generation;
+			this.state[node] = OPEN;
+			this.gCost[node] = NO_MEETING;
+			this.gCostBack[node] = NO_MEETING;
+			this.parent[node] = NO_NODE;
+			this.parentBack[node] = NO_NODE;
+		}
+	}
+
+	/**
+	 * Copies the path through the meeting point into the path array, from
+	 * start to goal.
+	 */
+	private void buildMeetingPath() {
+		int i = this.gCost[this.meetNode];
+		for (int node = this.meetNode; node != NO_NODE; node = this.parent[node]) {
+			this.path[i--] = node;
+		}
+		i = this.gCost[this.meetNode] + 1;
+		for (int node = this.parentBack[this.meetNode]; node != NO_NODE; node = this.parentBack[node]) {
+			this.path[i++] = node;
+		}
+		this.pathLength = this.meetCost + 1;
+	}
+
+	/**
+	 * Expands a cell for the A* search.
+	 *
+	 * @param current
+	 *            the index of the cell.
+	 * @param goal
+	 *            the index of the cell to reach.
+	 */
+	private void expand(int current, int goal) {
+		int mask = this.searchGraph.getNeighbourMask(current);
+		for (int dir = 0; dir < NavGraph.DIRECTIONS; dir++) {
+			if ((mask & (1 << dir)) != 0) {
+				this.relax(current, this.searchGraph.getNeighbour(current, dir), goal);
+			}
+		}
+	}
+
+	/**
+	 * Expands a cell for the jump point search. Movement is in four
+	 * directions with every step costing the same, so the search only
+	 * stops on cells where a shortest path might have to turn: the goal,
+	 * cells next to the corner of an obstacle and, when moving up or down,
+	 * cells where a sideways scan finds such a cell. Every other cell is
+	 * passed over without being put in the open set.
+	 *
+	 * @param current
+	 *            the index of the cell.
+	 * @param goal
+	 *            the index of the cell to reach.
+	 */
+	private void expandJumpPoint(int current, int goal) {
+		SearchGraph graph = this.searchGraph;
+
+		// Only the directions a shortest path arriving this way could
+		// carry on in are searched.
+		int from = this.parent[current];
+		int dirs = (1 << NavGraph.DIRECTIONS) - 1;
+		if (from != NO_NODE) {
+			int dir = this.getDirection(from, current);
+			if (dir == Character.DIRECTION_LEFT || dir == Character.DIRECTION_RIGHT) {
+				dirs = (1 << dir) | (1 << Character.DIRECTION_UP) | (1 << Character.DIRECTION_DOWN);
+			} else {
+				dirs = (1 << dir) | (1 << Character.DIRECTION_LEFT) | (1 << Character.DIRECTION_RIGHT);
+			}
+		}
+
+		for (int dir = 0; dir < NavGraph.DIRECTIONS; dir++) {
+			if ((dirs & (1 << dir)) == 0) {
+				continue;
+			}
+			int jumpPoint;
+			if (dir == Character.DIRECTION_LEFT || dir == Character.DIRECTION_RIGHT) {
+				jumpPoint = this.jumpAcross(graph, current, dir, goal);
+			} else {
+				jumpPoint = this.jumpAlong(graph, current, dir, goal);
+			}
+			if (jumpPoint != NO_NODE) {
+				this.relax(current, jumpPoint, this.calculateDistance(current, jumpPoint), goal);
+			}
+		}
+	}
+
+	/**
+	 * Moves left or right from a cell until a jump point is found.
+	 *
+	 * @param graph
+	 *            the navigation graph being searched.
+	 * @param node
+	 *            the index of the cell to move from.
+	 * @param dir
+	 *            the direction, left or right.
+	 * @param goal
+	 *            the cell to reach.
+	 * @return the index of the jump point, or NO_NODE if the way is blocked
+	 *         first.
+	 */
+	private int jumpAcross(SearchGraph graph, int node, int dir, int goal) {
+		while (graph.canMove(node, dir)) {
+			int next = graph.getNeighbour(node, dir);
+			if (next == goal || this.hasForcedNeighbour(graph, node, next, Character.DIRECTION_UP)
+					|| this.hasForcedNeighbour(graph, node, next, Character.DIRECTION_DOWN)) {
+				return next;
+			}
+			node = next;
+		}
+		return NO_NODE;
+	}
+
+	/**
+	 * Moves up or down from a cell until a jump point is found. At every
+	 * step the cells to either side are scanned as well.
+	 *
+	 * @param graph
+	 *            the navigation graph being searched.
+	 * @param node
+	 *            the index of the cell to move from.
+	 * @param dir
+	 *            the direction, up or down.
+	 * @param goal
+	 *            the cell to reach.
+	 * @return the index of the jump point, or NO_NODE if the way is blocked
+	 *         first.
+	 */
+	private int jumpAlong(SearchGraph graph, int node, int dir, int goal) {
+		while (graph.canMove(node, dir)) {
+			int next = graph.getNeighbour(node, dir);
+			if (next == goal || this.hasForcedNeighbour(graph, node, next, Character.DIRECTION_LEFT)
+					|| this.hasForcedNeighbour(graph, node, next, Character.DIRECTION_RIGHT)
+					|| this.jumpAcross(graph, next, Character.DIRECTION_LEFT, goal) != NO_NODE
+					|| this.jumpAcross(graph, next, Character.DIRECTION_RIGHT, goal) != NO_NODE) {
+				return next;
+			}
+			node = next;
+		}
+		return NO_NODE;
+	}
+
+	/**
+	 * Checks if a cell has a neighbour to one side that can only be reached
+	 * well through it, because the same side of the cell before it is
+	 * blocked.
+	 *
+	 * @param graph
+	 *            the navigation graph being searched.
+	 * @param previous
+	 *            the cell that was moved from.
+	 * @param node
+	 *            the cell that was moved onto.
+	 * @param side
+	 *            the direction of the side to check.
+	 * @return true if the neighbour is forced.
+	 */
+	private boolean hasForcedNeighbour(SearchGraph graph, int previous, int node, int side) {
+		return graph.canMove(node, side) && !graph.canMove(previous, side);
+	}
+
+	/**
+	 * Gets the direction of a straight line between two cells.
+	 *
+	 * @param from
+	 *            the index of the first cell.
+	 * @param to
+	 *            the index of the second cell, in the same row or column.
+	 * @return the direction.
+	 */
+	private int getDirection(int from, int to) {
+		if (from / this.width == to / this.width) {
+			return to > from ? Character.DIRECTION_RIGHT : Character.DIRECTION_LEFT;
+		}
+		return to > from ? Character.DIRECTION_DOWN : Character.DIRECTION_UP;
+	}
+
+	/**
+	 * Copies the path ending at the goal into the path array, from start to
+	 * goal, filling in the cells between the jump points.
+	 *
+	 * @param goal
+	 *            the index of the goal.
+	 */
+	private void buildJumpPath(int goal) {
+		int length = this.gCost[goal] + 1;
+		int i = length - 1;
+		this.path[i] = goal;
+		for (int node = goal; this.parent[node] != NO_NODE; node = this.parent[node]) {
+			int from = this.parent[node];
+			int step = from / this.width == node / this.width ? 1 : this.width;
+			if (node < from) {
+				step = -step;
+			}
+			for (int cell = node - step; cell != from; cell -= step) {
+				this.path[--i] = cell;
+			}
+			this.path[--i] = from;
+		}
+		this.pathLength = length;
+	}
+
+	/**
+	 * Gets the number of cells on the last path found, including the start
+	 * and the goal.
+	 *
+	 * @return the length of the path, 0 if no path was found.
+	 */
+	public int getPathLength() {
+		return this.pathLength;
+	}
+
+	/**
+	 * Gets a cell on the last path found.
+	 *
+	 * @param i
+	 *            the step of the path, 0 being the start.
+	 * @return the index of the cell.
+	 */
+	public int getPathNode(int i) {
+		return this.path[i];
+	}
+
+	/**
+	 * Gets the first cell to move to on the last path found.
+	 *
+	 * @return the index of the cell, or NO_NODE if there is no next step.
+	 */
+	public int getFirstStep() {
+		if (this.pathLength < 2) {
+			return NO_NODE;
+		}
+		return this.path[1];
+	}
+
+	/**
+	 * Gets how many cells the last call to findPath or requestPath expanded.
+	 *
+	 * @return the number of expanded cells.
+	 */
+	public int getExpandedCount() {
+		return this.expandedCount;
+	}
+
+	/**
+	 * Gets the index of a cell.
+	 *
+	 * @param x
+	 *            the x position of the cell.
+	 * @param y
+	 *            the y position of the cell.
+	 * @return the index, y * width + x.
+	 */
+	public int indexOf(int x, int y) {
+		return y * this.width + x;
+	}
+
+	/**
+	 * Gets the index of a cell.
+	 *
+	 * @param cell
+	 *            the cell.
+	 * @return the index, y * width + x.
+	 */
+	public int indexOf(BasicCell cell) {
+		return this.indexOf(cell.getX(), cell.getY());
+	}
+
+	/**
+	 * Gets the cell of the map at an index.
+	 *
+	 * @param index
+	 *            the index of the cell.
+	 * @return the cell.
+	 */
+	public BasicCell getCell(int index) {
+		return this.mapLevel.getCell(index % this.width, index / this.width);
+	}
+
+	/**
+	 * Tries to reach a neighbour through the current cell.
+	 *
+	 * @param current
+	 *            the cell being expanded.
+	 * @param neighbour
+	 *            the neighbouring cell.
+	 * @param goal
+	 *            the cell to reach.
+	 */
+	private void relax(int current, int neighbour, int goal) {
+		this.relax(current, neighbour, 1, goal);
+	}
+
+	/**
+	 * Tries to reach a cell through the current cell. Among nodes with the
+	 * same F Cost the one closest to the goal is expanded first.
+	 *
+	 * @param current
+	 *            the cell being expanded.
+	 * @param neighbour
+	 *            the cell to reach.
+	 * @param cost
+	 *            the number of steps between them.
+	 * @param goal
+	 *            the cell to reach.
+	 */
+	private void relax(int current, int neighbour, int cost, int goal) {
+		int tempGCost = this.gCost[current] + cost;
+
+		if (this.stamp[neighbour] != this.generation) {
+			this.touch(neighbour, tempGCost, current, goal);
+			this.openSet.add(neighbour, tempGCost + this.hCost[neighbour], this.hCost[neighbour]);
+		} else if (this.state[neighbour] == OPEN && tempGCost < this.gCost[neighbour]) {
+			this.gCost[neighbour] = tempGCost;
+			this.parent[neighbour] = current;
+			this.openSet.decreaseKey(neighbour, tempGCost + this.hCost[neighbour]);
+		}
+	}
+
+	/**
+	 * Marks a node as visited by the current search and works out its H
+	 * Cost.
+	 *
+	 * @param node
+	 *            the index of the node.
+	 * @param g
+	 *            the G Cost of the node.
+	 * @param from
+	 *            the node it was reached from.
+	 * @param goal
+	 *            the cell to reach.
+	 */
+	private void touch(int node, int g, int from, int goal) {
+		this.stamp[node] = this.generation;
+		this.state[node] = OPEN;
+		this.gCost[node] = g;
+		this.hCost[node] = this.calculateHCost(node, goal);
+		this.parent[node] = from;
+	}
+
+	/**
+	 * Starts a new search generation. The stamps are only cleared when the
+	 * generation number wraps around.
+	 */
+	private void nextGeneration() {
+		this.generation++;
+		if (this.generation == 0) {
+			Arrays.fill(this.stamp, 0);
+			this.generation = 1;
+		}
+	}
+
+	/**
+	 * Calculates the H Cost of a cell, the Manhattan distance to the goal,
+	 * or less if a teleporter gets there sooner, or the bound given by the
+	 * landmarks if that is larger. The landmark tables are only used once
+	 * they have been built for the map as it is.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 * @param goal
+	 *            the index of the goal, which is the goal or the start of
+	 *            the search.
+	 * @return the H Cost.
+	 */
+	private int calculateHCost(int node, int goal) {
+		TeleporterBounds bounds = goal == this.goalBounds.getTarget() ? this.goalBounds : this.startBounds;
+		int h = bounds.getHCost(node);
+		if (this.searchLandmarks != null) {
+			h = Math.max(h, this.searchLandmarks.getHCost(node, goal));
+		}
+		return h * H_WEIGHT_MULT;
+	}
+
+	/**
+	 * Calculates the number of steps between two cells ignoring walls.
+	 *
+	 * @param a
+	 *            the index of the first cell.
+	 * @param b
+	 *            the index of the second cell.
+	 * @return the distance.
+	 */
+	private int calculateDistance(int a, int b) {
+		return Math.abs(a % this.width - b % this.width) + Math.abs(a / this.width - b / this.width);
+	}
+
+	/**
+	 * Copies the path ending at the goal into the path array, from start to
+	 * goal.
+	 *
+	 * @param goal
+	 *            the index of the goal.
+	 */
+	private void buildPath(int goal) {
+		int length = 0;
+		for (int node = goal; node != NO_NODE; node = this.parent[node]) {
+			length++;
+		}
+
+		int i = length - 1;
+		for (int node = goal; node != NO_NODE; node = this.parent[node]) {
+			this.path[i--] = node;
+		}
+		this.pathLength = length;
+	}
+}
@@ -0,0 +1,122 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ * Lets a SmartTargetingEnemy find its way on very large levels using the
+ * map's ClusterGraph. Only the first step of the route is worked out cell
+ * by cell, the rest of the route is kept as the entrances it passes
+ * through.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.0
+ */
+public class HierarchicalPlanner implements PathPlanner {
+	private Enemy enemy;
+	private Character player;
+	private Map mapLevel;
+	private ClusterGraph clusters;
+	private long expandedCount;
+
+	/**
+	 * Creates the planner.
+	 *
+	 * @param enemy
+	 *            an instance of the Enemy.
+	 * @param player
+	 *            an instance of the Player.
+	 * @param mapLevel
+	 *            an instance of the Map.
+	 */
+	public HierarchicalPlanner(Enemy enemy, Character player, Map mapLevel) {
+		this.enemy = enemy;
+		this.player = player;
+		this.mapLevel = mapLevel;
+		this.clusters = mapLevel.getClusterGraph(enemy.getSafeLevel());
+		this.expandedCount = 0;
+	}
+
+	/**
+	 * Determines the next cell to move to. If there is no path to the
+	 * player, the enemy moves randomly.
+	 *
+	 * @return the next cell to move towards.
+	 */
+	public BasicCell getMove() {
+		int start = this.indexOf(this.enemy.getLocation());
+		int goal = this.indexOf(this.player.getLocation());
+		if (start == goal) {
+			return this.enemy.getLocation();
+		}
+
+		int next = this.clusters.findFirstStep(start, goal);
+		this.expandedCount += this.clusters.getExpandedCount();
+		if (next == GridPathfinder.NO_NODE) {
+			return this.enemy.getRandomMove();
+		}
+		return this.getCell(next);
+	}
+
+	/**
+	 * Finds the route between the Enemy and the Player. Past the first step
+	 * the route only holds the entrances between clusters, so the cells
+	 * are not all next to each other.
+	 *
+	 * @return the waypoints to the Player, starting at the Player and
+	 *         ending at the Enemy.
+	 */
+	public ArrayList<BasicCell> findPath() {
+		ArrayList<BasicCell> path = new ArrayList<BasicCell>();
+		int start = this.indexOf(this.enemy.getLocation());
+		int goal = this.indexOf(this.player.getLocation());
+		path.add(this.getCell(start));
+
+		int next = this.clusters.findFirstStep(start, goal);
+		this.expandedCount += this.clusters.getExpandedCount();
+		if (next != GridPathfinder.NO_NODE) {
+			path.add(this.getCell(next));
+			for (int i = 1; i < this.clusters.getWaypointCount(); i++) {
+				int waypoint = this.clusters.getWaypoint(i);
+				if (waypoint != next) {
+					path.add(this.getCell(waypoint));
+				}
+			}
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	/**
+	 * Gets how many entrances this planner has expanded since it was
+	 * created.
+	 *
+	 * @return the number of expanded entrances.
+	 */
+	public long getExpandedCount() {
+		return this.expandedCount;
+	}
+
+	/**
+	 * Gets the index of a cell.
+	 *
+	 * @param cell
+	 *            the cell.
+	 * @return the index, y * width + x.
+	 */
+	private int indexOf(BasicCell cell) {
+		return cell.getY() * this.mapLevel.getMapWidth() + cell.getX();
+	}
+
+	/**
+	 * Gets the cell of the map at an index.
+	 *
+	 * @param index
+	 *            the index of the cell.
+	 * @return the cell.
+	 */
+	private BasicCell getCell(int index) {
+		int width = this.mapLevel.getMapWidth();
+		return this.mapLevel.getCell(index % width, index / width);
+	}
+}
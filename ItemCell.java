@@ -6,7 +6,7 @@ import javafx.scene.image.Image;
 /**
  * This class represents a cell with an item on it.
  * @author Gayathri Praveen
- * @version 1.3
+ * @version 1.4
  */
 public class ItemCell extends BasicCell {
 	public static final String IRON_BOOTS = "ironBoots";
@@ -40,14 +40,16 @@ public class ItemCell extends BasicCell {
 	/**
 	 * Draws the cell with the item onto the map.
 	 * @param gc The graphics context.
+	 * @param x The x position to draw it at.
+	 * @param y The y position to draw it at.
 	 */
-	public void draw(GraphicsContext gc) {
+	public void drawAt(GraphicsContext gc, int x, int y) {
 		if (item.equals(IRON_BOOTS)) {
-			gc.drawImage(BOOTS_IMAGE, positionX * size, positionY * size);
+			gc.drawImage(BOOTS_IMAGE, x * size, y * size);
 		} else if (item.equals(FLIPPERS)) {
-			gc.drawImage(FLIPPERS_IMAGE, positionX * size, positionY * size);
+			gc.drawImage(FLIPPERS_IMAGE, x * size, y * size);
 		} else if (item.equals(TOKEN)) {
-			gc.drawImage(TOKEN_IMAGE, positionX * size, positionY * size);
+			gc.drawImage(TOKEN_IMAGE, x * size, y * size);
 		}
 	}
 }
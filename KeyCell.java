@@ -5,7 +5,7 @@ import javafx.scene.image.Image;
 /**
  * This class represents a cell with a key on it.
  * @author Gayathri Praveen
- * @version 1.0
+ * @version 1.1
  */
 public class KeyCell extends BasicCell {
 	private static final Image RED_KEY_IMAGE = new Image("RedKeyTile.png");
@@ -37,15 +37,17 @@ public class KeyCell extends BasicCell {
 	/**
 	 * Draws the cell with the key onto the map.
 	 * @param gc The graphics context.
+	 * @param x The x position to draw it at.
+	 * @param y The y position to draw it at.
 	 */
-	public void draw(GraphicsContext gc) {
+	public void drawAt(GraphicsContext gc, int x, int y) {
 		String colour = key.getColour();
 		if (colour.equals(Key.RED)) {
-			gc.drawImage(RED_KEY_IMAGE, positionX * Game.ELEMENT_SIZE, positionY *  Game.ELEMENT_SIZE);
+			gc.drawImage(RED_KEY_IMAGE, x * Game.ELEMENT_SIZE, y *  Game.ELEMENT_SIZE);
 		} else if (colour.equals(Key.GREEN)) {
-			gc.drawImage(GREEN_KEY_IMAGE, positionX *  Game.ELEMENT_SIZE, positionY *  Game.ELEMENT_SIZE);
+			gc.drawImage(GREEN_KEY_IMAGE, x *  Game.ELEMENT_SIZE, y *  Game.ELEMENT_SIZE);
 		} else if (colour.equals(Key.BLUE)) {
-			gc.drawImage(BLUE_KEY_IMAGE, positionX *  Game.ELEMENT_SIZE, positionY *  Game.ELEMENT_SIZE);
+			gc.drawImage(BLUE_KEY_IMAGE, x *  Game.ELEMENT_SIZE, y *  Game.ELEMENT_SIZE);
 		}
 	}
 	
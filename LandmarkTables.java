@@ -0,0 +1,103 @@
+package application;
+
+/**
+ * The distances from a few landmark cells to every cell of a map, as
+ * worked out for one version of the map. For any two cells, the
+ * difference between their distances to a landmark can never be more
+ * than the distance between them, which gives A* a far better H Cost than
+ * the Manhattan distance on winding levels. The tables never change once
+ * they are made, so they can be handed between threads.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.0
+ */
+public class LandmarkTables {
+	// The distance stored for a cell the landmark cannot reach, or that is
+	// too far away to store.
+	public static final short UNKNOWN = -1;
+
+	private int version;
+	private int[] landmarks;
+	private short[][] distances;
+
+	/**
+	 * Creates the tables.
+	 *
+	 * @param version
+	 *            the version of the map the distances were worked out on.
+	 * @param landmarks
+	 *            the index of each landmark cell.
+	 * @param distances
+	 *            for each landmark, the distance to every cell.
+	 */
+	public LandmarkTables(int version, int[] landmarks, short[][] distances) {
+		this.version = version;
+		this.landmarks = landmarks;
+		this.distances = distances;
+	}
+
+	/**
+	 * Works out the largest lower bound the landmarks give on the number of
+	 * steps between two cells.
+	 *
+	 * @param node
+	 *            the index of the first cell.
+	 * @param goal
+	 *            the index of the second cell.
+	 * @return the H Cost, 0 if no landmark knows about both cells.
+	 */
+	public int getHCost(int node, int goal) {
+		int best = 0;
+		for (int i = 0; i < this.distances.length; i++) {
+			short[] table = this.distances[i];
+			int fromNode = table[node];
+			int fromGoal = table[goal];
+			if (fromNode != UNKNOWN && fromGoal != UNKNOWN) {
+				best = Math.max(best, Math.abs(fromNode - fromGoal));
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Gets the version of the map the distances were worked out on.
+	 *
+	 * @return the version.
+	 */
+	public int getVersion() {
+		return this.version;
+	}
+
+	/**
+	 * Gets how many landmarks there are.
+	 *
+	 * @return the number of landmarks.
+	 */
+	public int getLandmarkCount() {
+		return this.landmarks.length;
+	}
+
+	/**
+	 * Gets a landmark cell.
+	 *
+	 * @param i
+	 *            the number of the landmark.
+	 * @return the index of the cell.
+	 */
+	public int getLandmark(int i) {
+		return this.landmarks[i];
+	}
+
+	/**
+	 * Gets the distance from a landmark to a cell.
+	 *
+	 * @param i
+	 *            the number of the landmark.
+	 * @param node
+	 *            the index of the cell.
+	 * @return the distance, or UNKNOWN.
+	 */
+	public int getDistance(int i, int node) {
+		return this.distances[i][node];
+	}
+}
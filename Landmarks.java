@@ -0,0 +1,223 @@
+package application;
+
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Picks landmark cells on a map and works out the LandmarkTables for them.
+ * The tables are built on a background thread from a copy of the
+ * navigation graph, so the game never waits for them. When the map
+ * changes the old tables could overestimate, so they are not handed out
+ * any more and new ones are built the next time they are asked for.
+ * Nothing is built until a search first asks for the tables, so a level
+ * without enemies that search never pays for them. Distances are
+ * measured through teleporters as well.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.2
+ */
+public class Landmarks {
+	public static final int DEFAULT_COUNT = 8;
+
+	// One background thread builds the tables for every map.
+	private static final ExecutorService BUILDER = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Landmark builder");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private Map mapLevel;
+	private NavGraph graph;
+	private int width;
+	private int count;
+	// The newest tables built, set by the background thread.
+	private volatile LandmarkTables tables;
+	// The version of the map the last build was started for.
+	private int requestedVersion;
+
+	/**
+	 * Creates the landmarks for a map.
+	 *
+	 * @param mapLevel
+	 *            the map.
+	 * @param safeLevel
+	 *            the safe level of the characters using them.
+	 * @param count
+	 *            how many landmarks to pick.
+	 */
+	public Landmarks(Map mapLevel, int safeLevel, int count) {
+		this.mapLevel = mapLevel;
+		this.graph = mapLevel.getNavGraph(safeLevel);
+		this.width = mapLevel.getMapWidth();
+		this.count = count;
+		this.requestedVersion = -1;
+	}
+
+	/**
+	 * Starts building the tables for the map as it is now, if that has not
+	 * been done already.
+	 */
+	public void prepare() {
+		int version = this.mapLevel.getVersion();
+		LandmarkTables current = this.tables;
+		if (version == this.requestedVersion || (current != null && current.getVersion() == version)) {
+			return;
+		}
+		this.requestedVersion = version;
+		byte[] masks = this.graph.copyMasks();
+		int[] links = this.graph.copyLinks();
+		BUILDER.execute(() -> this.tables = this.build(masks, links, version));
+	}
+
+	/**
+	 * Gets the tables for the map as it is now. If they are not ready they
+	 * are started and null is returned.
+	 *
+	 * @return the tables, or null.
+	 */
+	public LandmarkTables getTables() {
+		LandmarkTables current = this.tables;
+		if (current != null && current.getVersion() == this.mapLevel.getVersion()) {
+			return current;
+		}
+		this.prepare();
+		return null;
+	}
+
+	/**
+	 * Picks the landmarks and works out their distances. Each landmark is
+	 * the cell furthest from the ones picked before it, and cells none of
+	 * them can reach are picked first so that every part of the map gets
+	 * one.
+	 *
+	 * @param masks
+	 *            a copy of the navigation graph's masks.
+	 * @param links
+	 *            a copy of the navigation graph's teleporter links.
+	 * @param version
+	 *            the version of the map the masks were copied from.
+	 * @return the tables.
+	 */
+	private LandmarkTables build(byte[] masks, int[] links, int version) {
+		int size = masks.length;
+		int[] queue = new int[size];
+		int[] distance = new int[size];
+		int[] closest = new int[size];
+		Arrays.fill(closest, Integer.MAX_VALUE);
+
+		boolean[] open = new boolean[size];
+		for (int node = 0; node < size; node++) {
+			open[node] = (masks[node] & NavGraph.OPEN_BIT) != 0;
+		}
+
+		// Start from the cell furthest from the first open cell, which will
+		// be at the edge of its part of the map.
+		int seed = 0;
+		while (seed < size - 1 && !open[seed]) {
+			seed++;
+		}
+		this.search(masks, links, seed, queue, distance);
+		int next = this.findFurthest(distance, open);
+
+		int[] landmarks = new int[this.count];
+		short[][] distances = new short[this.count][];
+		for (int i = 0; i < this.count; i++) {
+			landmarks[i] = next;
+			this.search(masks, links, next, queue, distance);
+
+			short[] table = new short[size];
+			for (int node = 0; node < size; node++) {
+				int d = distance[node];
+				if (d < 0 || d > Short.MAX_VALUE) {
+					table[node] = LandmarkTables.UNKNOWN;
+				} else {
+					table[node] = (short) d;
+					closest[node] = Math.min(closest[node], d);
+				}
+			}
+			distances[i] = table;
+			next = this.findFurthest(closest, open);
+		}
+		return new LandmarkTables(version, landmarks, distances);
+	}
+
+	/**
+	 * Runs a breadth first search over the masks.
+	 *
+	 * @param masks
+	 *            the navigation graph's masks.
+	 * @param links
+	 *            the navigation graph's teleporter links.
+	 * @param source
+	 *            the index of the cell to search from.
+	 * @param queue
+	 *            space for the queue.
+	 * @param distance
+	 *            filled with the distance to every cell, -1 if unreached.
+	 */
+	private void search(byte[] masks, int[] links, int source, int[] queue, int[] distance) {
+		Arrays.fill(distance, -1);
+		int head = 0;
+		int tail = 0;
+		distance[source] = 0;
+		queue[tail++] = source;
+
+		while (head < tail) {
+			int current = queue[head++];
+			int mask = masks[current];
+			for (int dir = 0; dir < NavGraph.DIRECTIONS; dir++) {
+				if ((mask & (1 << dir)) == 0) {
+					continue;
+				}
+				int neighbour = current + this.getDelta(dir);
+				if (links[neighbour] != GridPathfinder.NO_NODE) {
+					neighbour = links[neighbour] + this.getDelta(dir);
+				}
+				if (distance[neighbour] < 0) {
+					distance[neighbour] = distance[current] + 1;
+					queue[tail++] = neighbour;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Finds the open cell with the largest value.
+	 *
+	 * @param values
+	 *            the value of each cell.
+	 * @param open
+	 *            which cells can be moved onto.
+	 * @return the index of the cell, 0 if none are open.
+	 */
+	private int findFurthest(int[] values, boolean[] open) {
+		int best = -1;
+		for (int node = 0; node < values.length; node++) {
+			if (open[node] && (best < 0 || values[node] > values[best])) {
+				best = node;
+			}
+		}
+		return Math.max(best, 0);
+	}
+
+	/**
+	 * Gets how far away in the index the neighbour in a direction is.
+	 *
+	 * @param dir
+	 *            the direction.
+	 * @return the difference in index.
+	 */
+	private int getDelta(int dir) {
+		switch (dir) {
+			case Character.DIRECTION_UP:
+				return -this.width;
+			case Character.DIRECTION_RIGHT:
+				return 1;
+			case Character.DIRECTION_DOWN:
+				return this.width;
+			default:
+				return -1;
+		}
+	}
+}
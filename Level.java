@@ -9,7 +9,7 @@ import javafx.stage.Stage;
 /**
  * This class represents and displays a level.
  * @author Will Conroy
- * @version 1.3
+ * @version 1.9
  */
 public class Level {
 	// What keys control the player
@@ -19,17 +19,25 @@ public class Level {
 	private static final String RIGHT_KEY = "Right";
 	private static final String SAVE_KEY = "S";
 	private static final String ESC_KEY = "Esc";
+	// How many cells the smart enemies' searches may expand in one move
+	private static final int PATHFINDING_BUDGET = 4000;
 	// private static final String String = null;
 
 	// All the enemies in the game.
 	private Enemy[] enemyList;
 
+	// Which cells have an enemy on them
+	private OccupancyGrid occupancy;
+
 	// The character the user controls
 	private Player thePlayer;
 
 	// The map the player and enemies are in
 	private Map map;
 
+	// Works out the smart enemies' moves at the same time
+	private ParallelPlanner parallelPlanner;
+
 	// Where the level is draw onto
 	private Canvas canvas;
 
@@ -108,8 +116,14 @@ public class Level {
 	 * Move and redraws all the enemies.
 	 */
 	private void updateEnemies() {
+		map.getPathfinder().startTick();
+		map.getReservations().nextTick();
+		// plan first, then move every enemy in the order of the list
+		parallelPlanner.planMoves(enemyList);
 		for (int i = 0; i < enemyList.length; i++) {
+			occupancy.remove(enemyList[i].getLocation());
 			enemyList[i].update();
+			occupancy.add(enemyList[i].getLocation());
 		}
 	}
 
@@ -193,13 +207,10 @@ public class Level {
 			this.killPlayer();
 		}
 
-		if (playerOnEmeny) {
-			for (int i = 0; i < enemyList.length; i++) {
-				if (enemyList[i].getLocation() == playerOldPosition) {
-					this.killPlayer();
-				}
-			}
-
+		// An enemy that has moved onto where the player was has passed
+		// through them
+		if (playerOnEmeny && occupancy.isOccupied(playerOldPosition)) {
+			this.killPlayer();
 		}
 
 	}
@@ -209,13 +220,16 @@ public class Level {
 	 * @return True if the player is on the same cell, false otherwise.
 	 */
 	private boolean isPlayerOnEnemy() {
-		for (int i = 0; i < enemyList.length; i++) {
-			if (enemyList[i].getLocation() == thePlayer.getLocation()) {
-				return true;
-			}
-		}
-		return false;
+		return occupancy.isOccupied(thePlayer.getLocation());
+	}
 
+	/**
+	 * Checks if any enemy is on a cell.
+	 * @param cell The cell.
+	 * @return True if an enemy is on it, false otherwise.
+	 */
+	public boolean isOccupied(BasicCell cell) {
+		return occupancy.isOccupied(cell);
 	}
 
 	/**
@@ -267,8 +281,14 @@ public class Level {
 	private void loadLevel() {
 		this.levelTimer = new Timer(loader.getTime());
 		this.map = loader.getMap();
+		this.map.getPathfinder().setTickBudget(PATHFINDING_BUDGET);
+		this.parallelPlanner = new ParallelPlanner(this.map);
 		this.thePlayer = loader.getThePlayer();
 		this.enemyList = loader.makeEnemyList();
+		this.occupancy = new OccupancyGrid(map.getMapWidth(), map.getMapHeight());
+		for (int i = 0; i < enemyList.length; i++) {
+			occupancy.add(enemyList[i].getLocation());
+		}
 		// this.user = loader.getUser();
 		map.update(canvas.getGraphicsContext2D());
 		thePlayer.draw();
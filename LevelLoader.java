@@ -4,6 +4,7 @@ import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
 
 import javafx.scene.canvas.GraphicsContext;
@@ -13,7 +14,7 @@ import javafx.scene.canvas.GraphicsContext;
  *
  * @author William Conroy
  * @author Aryan Mosallah
- * @version 1.0
+ * @version 1.5
  */
 
 public class LevelLoader {
@@ -34,6 +35,12 @@ public class LevelLoader {
 	public static final char BLUE_DOOR = 'B';
 
 	public static final int SIZE_LINE = 2;
+	// Levels with at least this many tiles are stored in chunks.
+	public static final int CHUNKED_AREA = 256 * 256;
+	// Set this system property to true to keep the tiles off the heap.
+	public static final String OFF_HEAP_PROPERTY = "application.offHeapMaps";
+	// Optional field on an enemy line naming how a smart enemy finds its way.
+	public static final int PLANNER_FIELD = 4;
 
 	public static final String WALL_FOLLOW = "WALL";
 	public static final String SMART_TARGETING = "SMART";
@@ -85,14 +92,16 @@ public class LevelLoader {
 	 */
 	private String readMap(String fileName) {
 		this.loadedFile = "";
+		StringBuilder file = new StringBuilder();
 		try (BufferedReader br = new BufferedReader(new FileReader(fileName))) {
 			try {
 				for (String line; (line = br.readLine()) != null;) {
-					loadedFile += line + "\n";
+					file.append(line).append('\n');
 				}
 			} catch (IOException e) {
 				e.printStackTrace();
 			}
+			loadedFile = file.toString();
 			// line is not visible here.
 		} catch (FileNotFoundException e1) {
 			System.out.println("File not found");
@@ -108,7 +117,12 @@ public class LevelLoader {
 	 */
 	private void makeMap() {
 
-		BasicCell[][] basicCellArray = new BasicCell[this.width][this.height];
+		// A new level starts with water and wind deadly again.
+		DeadlyCell.setGlobalSafeLevelWater(2);
+		DeadlyCell.setGlobalSafeLevelWind(2);
+
+		TileStore tiles = makeTileStore();
+		boolean mapped = tiles instanceof OffHeapTileGrid && ((OffHeapTileGrid) tiles).isMapped();
 		String[] mapRow = new String[this.height];
 
 		// Make an array of strings where each element is a row of the level
@@ -116,14 +130,15 @@ public class LevelLoader {
 			mapRow[y] = fileString[y + 1 + SIZE_LINE];
 		}
 
-		for (int y = 0; y < this.height; y++) {
+		// A mapped tile file already holds the rows.
+		for (int y = 0; y < this.height && !mapped; y++) {
 			int x = 0;
 			for (char ch : mapRow[y].toCharArray()) {
 				int chInt = ch - 48;
 				if (chInt > 0 && chInt < 10) {
-					basicCellArray[x][y] = new TokenDoor(x, y, chInt);
+					tiles.setTile(x, y, TileStore.TOKEN_DOOR, chInt);
 				} else {
-					basicCellArray[x][y] = makeCell(ch, x, y);
+					makeTile(ch, x, y, tiles);
 				}
 				x++;
 			}
@@ -141,17 +156,74 @@ public class LevelLoader {
 			for (int i = 0; i < 4; i++) {
 				locations[i] = Integer.parseInt(temp[i + 1]);
 			}
-			basicCellArray = this.loadTele(locations[0], locations[1], locations[2], locations[3], basicCellArray);
+			this.loadTele(locations[0], locations[1], locations[2], locations[3], tiles);
 			count++;
 			temp = teleRow[count].split(",");
 		}
 		this.playerLine = playerLine + count;
 
-		this.map = new Map(basicCellArray, this.width, this.height);
+		if (tiles instanceof ChunkedTileGrid) {
+			((ChunkedTileGrid) tiles).compact();
+		}
+		if (tiles instanceof OffHeapTileGrid && this.width * this.height >= CHUNKED_AREA
+				&& !OffHeapTileGrid.isUpToDate(OffHeapTileGrid.getTileFile(this.fileLocation),
+						Path.of(this.fileLocation))) {
+			saveTileFile(tiles);
+		}
+		this.map = new Map(tiles);
+	}
+
+	/**
+	 * Saves the tiles of a big level next to its level file, so the next
+	 * time it is loaded off the heap they can be mapped in rather than
+	 * read from the level file. Failing to save, such as when the level is
+	 * in a folder that cannot be written to, only costs that time, so it 
+	 * is not reported.
+	 *
+	 * @param tiles
+	 *            the tiles just read from the level file.
+	 */
+	private void saveTileFile(TileStore tiles) {
+		try {
+			OffHeapTileGrid.save(tiles, OffHeapTileGrid.getTileFile(this.fileLocation), Path.of(this.fileLocation));
+		} catch (IOException e) {
+			// The level is read from its level file again next time.
+		}
+	}
+
+	/**
+	 * Makes the store for the tiles of the level. Big levels are stored 
+	 * in chunks. If the off heap property is set the tiles are kept off 
+	 * the heap, mapped from the level's tile file if it has one that fits
+	 * and was saved from the level file as it is now. A tile file that 
+	 * cannot be mapped is passed over and the level file is read instead.
+	 *
+	 * @return the empty store, or the mapped tiles.
+	 */
+	private TileStore makeTileStore() {
+		if (Boolean.getBoolean(OFF_HEAP_PROPERTY)) {
+			Path tileFile = OffHeapTileGrid.getTileFile(this.fileLocation);
+			if (OffHeapTileGrid.hasTileFile(this.fileLocation)
+					&& OffHeapTileGrid.isUpToDate(tileFile, Path.of(this.fileLocation))) {
+				try {
+					OffHeapTileGrid tiles = OffHeapTileGrid.open(tileFile);
+					if (tiles.getWidth() == this.width && tiles.getHeight() == this.height) {
+						return tiles;
+					}
+				} catch (IOException e) {
+					// The rows are read from the level file instead.
+				}
+			}
+			return new OffHeapTileGrid(this.width, this.height);
+		} else if (this.width * this.height >= CHUNKED_AREA) {
+			return new ChunkedTileGrid(this.width, this.height);
+		} else {
+			return new TileGrid(this.width, this.height);
+		}
 	}
 
 	/**
-	 * Makes a cell based on its character in the save file.
+	 * Sets a tile based on its character in the save file.
 	 *
 	 * @param cell
 	 *            The character of the cell.
@@ -159,40 +231,56 @@ public class LevelLoader {
 	 *            the x position of the cell
 	 * @param y
 	 *            the y position of the cell
-	 * @return A BasicCell or any subclass
+	 * @param tiles
+	 *            The tiles of the map.
 	 */
-	private BasicCell makeCell(char cell, int x, int y) {
+	private void makeTile(char cell, int x, int y, TileStore tiles) {
 		switch (cell) {
 			case WALL:
-				return new BasicCell(3, x, y);
+				tiles.setTile(x, y, TileStore.WALL);
+				break;
 			case FLOOR:
-				return new BasicCell(0, x, y);
+				tiles.setTile(x, y, TileStore.FLOOR);
+				break;
 			case GOAL:
-				return new GoalCell(x, y);
+				tiles.setTile(x, y, TileStore.GOAL);
+				break;
 			case BOOTS:
-				return new ItemCell(ItemCell.IRON_BOOTS, x, y);
+				tiles.setTile(x, y, TileStore.BOOTS);
+				break;
 			case FLIPPERS:
-				return new ItemCell(ItemCell.FLIPPERS, x, y);
+				tiles.setTile(x, y, TileStore.FLIPPERS);
+				break;
 			case TOKEN:
-				return new ItemCell(ItemCell.TOKEN, x, y);
+				tiles.setTile(x, y, TileStore.TOKEN);
+				break;
 			case WATER:
-				return new DeadlyCell(x, y, true);
+				tiles.setTile(x, y, TileStore.WATER);
+				break;
 			case WIND:
-				return new DeadlyCell(x, y, false);
+				tiles.setTile(x, y, TileStore.WIND);
+				break;
 			case RED_KEY:
-				return new KeyCell(x, y, new Key(Key.RED));
+				tiles.setTile(x, y, TileStore.KEY, TileStore.colourIndex(Key.RED));
+				break;
 			case GREEN_KEY:
-				return new KeyCell(x, y, new Key(Key.GREEN));
+				tiles.setTile(x, y, TileStore.KEY, TileStore.colourIndex(Key.GREEN));
+				break;
 			case BLUE_KEY:
-				return new KeyCell(x, y, new Key(Key.BLUE));
+				tiles.setTile(x, y, TileStore.KEY, TileStore.colourIndex(Key.BLUE));
+				break;
 			case RED_DOOR:
-				return new ColouredDoor(x, y, Key.RED);
+				tiles.setTile(x, y, TileStore.COLOURED_DOOR, TileStore.colourIndex(Key.RED));
+				break;
 			case GREEN_DOOR:
-				return new ColouredDoor(x, y, Key.GREEN);
+				tiles.setTile(x, y, TileStore.COLOURED_DOOR, TileStore.colourIndex(Key.GREEN));
+				break;
 			case BLUE_DOOR:
-				return new ColouredDoor(x, y, Key.BLUE);
+				tiles.setTile(x, y, TileStore.COLOURED_DOOR, TileStore.colourIndex(Key.BLUE));
+				break;
 			default:
-				return new BasicCell(3, x, y);
+				tiles.setTile(x, y, TileStore.WALL);
+				break;
 		}
 
 	}
@@ -258,7 +346,11 @@ public class LevelLoader {
 			String[] enemyString = this.fileString[i].split(",");
 			int x = Integer.parseInt(enemyString[0]);
 			int y = Integer.parseInt(enemyString[1]);
-			enemyList[count] = makeEnemy(enemyString[2], x, y, enemyString[3]);
+			String planner = null;
+			if (enemyString.length > PLANNER_FIELD) {
+				planner = enemyString[PLANNER_FIELD].trim();
+			}
+			enemyList[count] = makeEnemy(enemyString[2], x, y, enemyString[3], planner);
 			count++;
 
 		}
@@ -274,9 +366,10 @@ public class LevelLoader {
 	 * @param x The x position.
 	 * @param y The y position
 	 * @param extra
+	 * @param planner The way a smart enemy finds the player, may be null.
 	 * @return an enemy
 	 */
-	private Enemy makeEnemy(String enemy, int x, int y, String extra) {
+	private Enemy makeEnemy(String enemy, int x, int y, String extra, String planner) {
 		switch (enemy) {
 			case STRAIGHT_LINE:
 				int dir = 0;
@@ -287,7 +380,7 @@ public class LevelLoader {
 			case WALL_FOLLOW:
 				return new WallFollowEnemy(map.getCell(x, y), this.gc, this.map);
 			case SMART_TARGETING:
-				return new SmartTargetingEnemy(map.getCell(x, y), this.gc, this.map, thePlayer);
+				return new SmartTargetingEnemy(map.getCell(x, y), this.gc, this.map, thePlayer, planner);
 			case DUMB_TARGETING:
 				return new DumbTargetingEnemy(map.getCell(x, y), this.gc, this.map, thePlayer);
 			default:
@@ -315,13 +408,11 @@ public class LevelLoader {
 	 *            x position of the second teleporter
 	 * @param yL
 	 *            y position of the second teleporter
-	 * @param map The map
-	 * @return an 2d array of cells
+	 * @param tiles The tiles of the map.
 	 */
-	private BasicCell[][] loadTele(int x, int y, int xL, int yL, BasicCell[][] map) {
-		map[x][y] = new Teleporter(x, y, xL, yL);
-		map[xL][yL] = ((Teleporter) map[x][y]).getLink();
-		return map;
+	private void loadTele(int x, int y, int xL, int yL, TileStore tiles) {
+		tiles.setTile(x, y, TileStore.TELEPORTER, yL * this.width + xL);
+		tiles.setTile(xL, yL, TileStore.TELEPORTER, y * this.width + x);
 	}
 
 	/**
@@ -122,16 +122,16 @@ public class LevelSaver {
 	 */
 	private String getMap() {
 		Map map = this.level.getMap();
-		BasicCell[][] mapGrid = map.getTheMap();
 		
 		ArrayList<Teleporter> teleporterList = new ArrayList<Teleporter>();
 		
 		for (int i = 0; i < map.getMapHeight(); i++) {
 			for (int j = 0; j < map.getMapWidth(); j++) {
-				this.isUnwalkable(mapGrid[j][i]);
-				this.isBasicLevelCell(mapGrid[j][i]);
-				this.isSafeCell(mapGrid[j][i], teleporterList);
-				this.isDeadlyCell(mapGrid[j][i]);
+				BasicCell cell = map.getCell(j, i);
+				this.isUnwalkable(cell);
+				this.isBasicLevelCell(cell);
+				this.isSafeCell(cell, teleporterList);
+				this.isDeadlyCell(cell);
 			}
 			this.mapComposition += "\r\n";
 		}
@@ -210,21 +210,26 @@ public class LevelSaver {
 				
 				switch(enemyList[i].getDirectionFacing()){
 					case 0:
-						this.charactersInfo += "UP\r\n";
+						this.charactersInfo += "UP";
 						break;
 					case 1:
-						this.charactersInfo += "RIGHT\r\n";
+						this.charactersInfo += "RIGHT";
 						break;
 					case 2:
-						this.charactersInfo += "DOWN\r\n";
+						this.charactersInfo += "DOWN";
 						break;
 					case 3:
-						this.charactersInfo += "LEFT\r\n";
+						this.charactersInfo += "LEFT";
 						break;
 					default:
 						System.out.println(enemyList[i].getDirectionFacing());
 						break;
 				}
+				
+				if (enemyList[i] instanceof SmartTargetingEnemy) {
+					this.charactersInfo += "," + ((SmartTargetingEnemy) enemyList[i]).getPlannerType();
+				}
+				this.charactersInfo += "\r\n";
 			}
 		}
 		
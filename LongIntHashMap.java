@@ -0,0 +1,185 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * A hash map from long keys to int values kept in plain arrays, so nothing
+ * is boxed when it is used on every step of a search. Collisions are dealt
+ * with by looking at the next slot along, and removing a key shifts back
+ * the keys after it so no markers are left behind. Values must not be
+ * negative, as NO_VALUE is returned for a missing key.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.0
+ */
+public class LongIntHashMap {
+	public static final int NO_VALUE = -1;
+
+	private long[] keys;
+	private int[] values;
+	private boolean[] used;
+	private int size;
+	// The number of slots is a power of two; this is one less.
+	private int mask;
+
+	/**
+	 * Creates an empty map.
+	 *
+	 * @param expected
+	 *            how many keys it is expected to hold.
+	 */
+	public LongIntHashMap(int expected) {
+		int capacity = 16;
+		while (capacity < expected * 2) {
+			capacity *= 2;
+		}
+		this.allocate(capacity);
+	}
+
+	/**
+	 * Sets the value of a key.
+	 *
+	 * @param key
+	 *            the key.
+	 * @param value
+	 *            the value, not negative.
+	 */
+	public void put(long key, int value) {
+		int slot = this.find(key);
+		if (!this.used[slot]) {
+			if ((this.size + 1) * 2 > this.keys.length) {
+				this.resize(this.keys.length * 2);
+				slot = this.find(key);
+			}
+			this.used[slot] = true;
+			this.keys[slot] = key;
+			this.size++;
+		}
+		this.values[slot] = value;
+	}
+
+	/**
+	 * Gets the value of a key.
+	 *
+	 * @param key
+	 *            the key.
+	 * @return the value, or NO_VALUE if the key is not in the map.
+	 */
+	public int get(long key) {
+		int slot = this.find(key);
+		return this.used[slot] ? this.values[slot] : NO_VALUE;
+	}
+
+	/**
+	 * Takes a key out of the map.
+	 *
+	 * @param key
+	 *            the key.
+	 */
+	public void remove(long key) {
+		int slot = this.find(key);
+		if (!this.used[slot]) {
+			return;
+		}
+		this.used[slot] = false;
+		this.size--;
+
+		// Move back any key after the gap that could not be found otherwise.
+		int gap = slot;
+		int next = (slot + 1) & this.mask;
+		while (this.used[next]) {
+			int home = this.hash(this.keys[next]);
+			if (((next - home) & this.mask) >= ((next - gap) & this.mask)) {
+				this.keys[gap] = this.keys[next];
+				this.values[gap] = this.values[next];
+				this.used[gap] = true;
+				this.used[next] = false;
+				gap = next;
+			}
+			next = (next + 1) & this.mask;
+		}
+	}
+
+	/**
+	 * Gets how many keys are in the map.
+	 *
+	 * @return the number of keys.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Takes every key out of the map.
+	 */
+	public void clear() {
+		if (this.size > 0) {
+			Arrays.fill(this.used, false);
+			this.size = 0;
+		}
+	}
+
+	/**
+	 * Finds the slot a key is in, or the empty slot it would go in.
+	 *
+	 * @param key
+	 *            the key.
+	 * @return the slot.
+	 */
+	private int find(long key) {
+		int slot = this.hash(key);
+		while (this.used[slot] && this.keys[slot] != key) {
+			slot = (slot + 1) & this.mask;
+		}
+		return slot;
+	}
+
+	/**
+	 * Works out the first slot to look in for a key, mixing the bits so
+	 * keys that are close together spread out.
+	 *
+	 * @param key
+	 *            the key.
+	 * @return the slot.
+	 */
+	private int hash(long key) {
+		long mixed = key * 0x9E3779B97F4A7C15L;
+		return (int) (mixed ^ (mixed >>> 32)) & this.mask;
+	}
+
+	/**
+	 * Moves every key into a larger set of slots.
+	 *
+	 * @param capacity
+	 *            the new number of slots.
+	 */
+	private void resize(int capacity) {
+		long[] oldKeys = this.keys;
+		int[] oldValues = this.values;
+		boolean[] oldUsed = this.used;
+		this.allocate(capacity);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldUsed[i]) {
+				int slot = this.find(oldKeys[i]);
+				this.used[slot] = true;
+				this.keys[slot] = oldKeys[i];
+				this.values[slot] = oldValues[i];
+				this.size++;
+			}
+		}
+	}
+
+	/**
+	 * Makes empty arrays with a number of slots.
+	 *
+	 * @param capacity
+	 *            the number of slots, a power of two.
+	 */
+	private void allocate(int capacity) {
+		this.keys = new long[capacity];
+		this.values = new int[capacity];
+		this.used = new boolean[capacity];
+		this.mask = capacity - 1;
+		this.size = 0;
+	}
+}
@@ -1,53 +1,230 @@
 package application;
 
+import java.util.Arrays;
+
 import javafx.scene.canvas.GraphicsContext;
 /**
  * Store and interacts with the map the character interact with.
  *
+ * Only the tiles themselves are kept sparse, by the store the level loader
+ * picks. Everything worked out from them is still one entry per cell of
+ * the whole map: the passability bits made here, the navigation graph of
+ * each safe level and the arrays of the pathfinders. Those other than the
+ * passability bits are made the first time something asks for them, so a
+ * big level only pays for the ones its characters use.
+ *
  * @author William Conroy
 
- * @version 1.5
+ * @version 1.22
  */
 public class Map {
-	//The array the hold all the cells in the map
-	private BasicCell[][] theMap;
+	//How many cells along each side of a dirty tracking region
+	public static final int REGION_SIZE = 16;
+	//The diagonal directions, after the four Character directions
+	public static final int UP_LEFT = 4;
+	public static final int UP_RIGHT = 5;
+	public static final int DOWN_RIGHT = 6;
+	public static final int DOWN_LEFT = 7;
+	//The wall given for every position off the map
+	private static final BasicCell OFF_MAP = new BasicCell(BasicCell.WALL_SAFELEVEL, -1, -1);
+	
+
+	//The tiles of the map, one code each
+	private TileStore tiles;
 	private int mapWidth;
 	private int mapHeight;
+	//The pathfinding engine shared by all characters on the map
+	private GridPathfinder pathfinder;
+	//The pathfinder for weighted cells, made when first needed
+	private WeightedPathfinder weightedPathfinder;
+	//Finds paths in the background, made when first needed
+	private PathfindingService pathfindingService;
+	//The navigation graph for each safe level, made when first needed
+	private NavGraph[] navGraphs;
+	//The chase field shared by the enemies chasing the player
+	private ChaseField chaseField;
+	//The cells the cooperative enemies have reserved, made when first needed
+	private ReservationTable reservations;
+	//The hierarchical view for each safe level, made when first needed
+	private ClusterGraph[] clusterGraphs;
+	//The connected parts of the map for each safe level, made when first needed
+	private ConnectedComponents[] components;
+	//The landmark distances for each safe level, made when first needed
+	private Landmarks[] landmarks;
+	
+	//Goes up by one every time a cell changes
+	private int version;
+	//The version at which each region last changed
+	private int[] regionVersions;
+	private int regionsAcross;
+	//Everything that wants to hear about changes
+	private MapListener[] listeners;
+	private int listenerCount;
+	//Where the water and wind cells are, as y * width + x
+	private int[] waterCells;
+	private int[] windCells;
+	//For each safe level, one bit per cell set if a character of that safe
+	//level can move onto the cell. The cells are padded by a border one cell
+	//wide that is never passable, so the cells next to any cell of the map
+	//can be read without checking it is on the map
+	private long[][] passable;
+	//The width of a padded row, and how far the index moves in each direction
+	private int stride;
+	private int[] neighbourDeltas;
 
 	Map(BasicCell[][] map, int width, int height) {
-		this.mapHeight = height;
-		this.mapWidth = width;
-		this.theMap = map;
+		this(TileGrid.fromCells(map, width, height));
 	}
 	
 	/**
-	 * Gets the map.
-	 * @return A 2D array of cells which represents the map.
+	 * Creates a map from its tiles.
+	 * @param tiles The tiles of the map.
 	 */
-	public BasicCell[][] getTheMap() {
-		return theMap;
+	Map(TileStore tiles) {
+		this.mapHeight = tiles.getHeight();
+		this.mapWidth = tiles.getWidth();
+		this.tiles = tiles;
+		int width = mapWidth;
+		int height = mapHeight;
+		this.navGraphs = new NavGraph[BasicCell.WALL_SAFELEVEL + 1];
+		this.clusterGraphs = new ClusterGraph[BasicCell.WALL_SAFELEVEL + 1];
+		this.components = new ConnectedComponents[BasicCell.WALL_SAFELEVEL + 1];
+		this.landmarks = new Landmarks[BasicCell.WALL_SAFELEVEL + 1];
+		this.version = 0;
+		this.regionsAcross = (width + REGION_SIZE - 1) / REGION_SIZE;
+		this.regionVersions = new int[regionsAcross * ((height + REGION_SIZE - 1) / REGION_SIZE)];
+		this.listeners = new MapListener[4];
+		this.listenerCount = 0;
+		this.stride = width + 2;
+		this.neighbourDeltas = new int[] { -stride, 1, stride, -1,
+				-stride - 1, -stride + 1, stride + 1, stride - 1 };
+		findDeadlyCells();
+		buildPassable();
+	}
+	
+	/**
+	 * Gets the tiles of the map.
+	 * @return The tiles.
+	 */
+	public TileStore getTiles() {
+		return tiles;
 	}
 
 	/**
-	 * Redraws all the cells in the map onto the canvas.
+	 * Redraws all the cells in the map onto the canvas, a row at a time.
+	 * Each tile is drawn with the shared cell for its look, so no cells are
+	 * made.
 	 * @param gc the graphics context.
 	 */
 	public void update(GraphicsContext gc) {
-		for (int x = 0; x < theMap.length; x++) {
-			for (int y = 0; y < theMap[0].length; y++) {
-				theMap[x][y].draw(gc);
+		for (int y = 0; y < mapHeight; y++) {
+			for (int x = 0; x < mapWidth; x++) {
+				tiles.getLook(x, y).drawAt(gc, x, y);
 			}
 		}
 	}
 	
 	/**
-	 * Gets a cell from a position in  the map.
+	 * Gets a cell from a position in  the map. The cell is made the first
+	 * time it is asked for and the same one is given back after that, 
+	 * until the cell is changed by setToBasic().
+	 * A position off the map gives a wall, as if the map had a wall around
+	 * it. The same wall is shared by every position off the map, so its 
+	 * own position is only good for finding out that it cannot be moved 
+	 * onto.
 	 * @param x The x position
 	 * @param y the y position
 	 * @return The cell.
 	 */
 	public BasicCell getCell(int x, int y) {
-		return theMap[x][y];
+		if (x < 0 || y < 0 || x >= mapWidth || y >= mapHeight) {
+			return OFF_MAP;
+		}
+		return tiles.getCell(x, y);
+	}
+	
+	/**
+	 * Checks if two cells are at the same position.
+	 * @param a The first cell.
+	 * @param b The second cell.
+	 * @return true if they are the same cell of the map.
+	 */
+	public static boolean isSameCell(BasicCell a, BasicCell b) {
+		return a.getX() == b.getX() && a.getY() == b.getY();
+	}
+	
+	/**
+	 * Checks if a character of a safe level can move onto a cell.
+	 * @param x The x position
+	 * @param y The y position
+	 * @param safeLevel The safe level of the character.
+	 * @return true if the cell is on the map and can be moved onto.
+	 */
+	public boolean isPassable(int x, int y, int safeLevel) {
+		return isPassableAt(getPaddedIndex(x, y), safeLevel);
+	}
+	
+	/**
+	 * Gets the index of a position in the padded grid of passable bits.
+	 * The position may be one cell off any side of the map.
+	 * @param x The x position, from -1 to the width.
+	 * @param y The y position, from -1 to the height.
+	 * @return The padded index.
+	 */
+	public int getPaddedIndex(int x, int y) {
+		return (y + 1) * stride + x + 1;
+	}
+	
+	/**
+	 * Gets the index of a cell in the padded grid of passable bits.
+	 * @param cell The cell.
+	 * @return The padded index.
+	 */
+	public int getPaddedIndex(BasicCell cell) {
+		return getPaddedIndex(cell.getX(), cell.getY());
+	}
+	
+	/**
+	 * Gets how far the padded index moves to get to the next cell in a 
+	 * direction. Adding it to the padded index of a cell of the map always 
+	 * gives a cell of the padded grid.
+	 * @param dir One of the Character directions, or one of UP_LEFT, 
+	 * UP_RIGHT, DOWN_RIGHT and DOWN_LEFT.
+	 * @return The change in padded index.
+	 */
+	public int getNeighbourDelta(int dir) {
+		return neighbourDeltas[dir];
+	}
+	
+	/**
+	 * Checks if a character of a safe level can move onto a cell of the 
+	 * padded grid. The border around the map can never be moved onto.
+	 * @param paddedIndex The padded index of the cell.
+	 * @param safeLevel The safe level of the character.
+	 * @return true if the cell is on the map and can be moved onto.
+	 */
+	public boolean isPassableAt(int paddedIndex, int safeLevel) {
+		return (passable[safeLevel][paddedIndex >>> 6] & (1L << paddedIndex)) != 0;
+	}
+	
+	/**
+	 * Gets which of the four cells next to a cell a character of a safe 
+	 * level can move onto, as one bit per direction with bit 
+	 * Character.DIRECTION_UP for up and so on. Teleporters are not followed.
+	 * @param x The x position
+	 * @param y The y position
+	 * @param safeLevel The safe level of the character.
+	 * @return The mask of passable neighbours.
+	 */
+	public int getPassableMask(int x, int y, int safeLevel) {
+		int index = getPaddedIndex(x, y);
+		int mask = 0;
+		for (int dir = Character.DIRECTION_UP; dir <= Character.DIRECTION_LEFT; dir++) {
+			if (isPassableAt(index + neighbourDeltas[dir], safeLevel)) {
+				mask |= 1 << dir;
+			}
+		}
+		return mask;
 	}
 	
 	/**
@@ -56,7 +233,192 @@ public class Map {
 	 * @param y The y position
 	 */
 	public void setToBasic(int x, int y) {
-		theMap[x][y] = new BasicCell(0, x, y);	
+		tiles.setTile(x, y, TileStore.FLOOR);
+		cellChanged(x, y);
+	}
+	
+	/**
+	 * Makes all water cells passable and reports every water cell as 
+	 * changed.
+	 */
+	public void makeSafeWater() {
+		if (DeadlyCell.getGlobalSafeLevelWater() != BasicCell.SAFE_CELL_SAFELEVEL) {
+			DeadlyCell.makeSafeWater();
+			cellsChanged(waterCells);
+		}
+	}
+	
+	/**
+	 * Makes all wind cells passable and reports every wind cell as changed.
+	 */
+	public void makeSafeWind() {
+		if (DeadlyCell.getGlobalSafeLevelWind() != BasicCell.SAFE_CELL_SAFELEVEL) {
+			DeadlyCell.makeSafeWind();
+			cellsChanged(windCells);
+		}
+	}
+	
+	/**
+	 * Gets the version of the map, which goes up every time a cell changes.
+	 * @return The version.
+	 */
+	public int getVersion() {
+		return version;
+	}
+	
+	/**
+	 * Gets the version at which the region holding a cell last changed. 
+	 * Regions are REGION_SIZE cells square.
+	 * @param x The x position
+	 * @param y The y position
+	 * @return The version of the region, 0 if it never changed.
+	 */
+	public int getRegionVersion(int x, int y) {
+		return regionVersions[(y / REGION_SIZE) * regionsAcross + x / REGION_SIZE];
+	}
+	
+	/**
+	 * Starts telling a listener about every change to the map. Listeners 
+	 * are told in the order they were added.
+	 * @param listener The listener.
+	 */
+	public void addListener(MapListener listener) {
+		if (listenerCount == listeners.length) {
+			listeners = Arrays.copyOf(listeners, listenerCount * 2);
+		}
+		listeners[listenerCount] = listener;
+		listenerCount++;
+	}
+	
+	/**
+	 * Stops telling a listener about changes to the map. The listeners 
+	 * after it are moved down, so the rest are still told in order.
+	 * @param listener The listener.
+	 */
+	public void removeListener(MapListener listener) {
+		for (int i = 0; i < listenerCount; i++) {
+			if (listeners[i] == listener) {
+				listenerCount--;
+				System.arraycopy(listeners, i + 1, listeners, i, listenerCount - i);
+				listeners[listenerCount] = null;
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Gets the pathfinding engine for this map, creating it the first time
+	 * it is needed.
+	 * @return The pathfinder.
+	 */
+	public GridPathfinder getPathfinder() {
+		if (pathfinder == null) {
+			pathfinder = new GridPathfinder(this);
+		}
+		return pathfinder;
+	}
+	
+	/**
+	 * Gets the pathfinder that finds the cheapest paths by cell weights,
+	 * creating it the first time it is needed.
+	 * @return The weighted pathfinder.
+	 */
+	public WeightedPathfinder getWeightedPathfinder() {
+		if (weightedPathfinder == null) {
+			weightedPathfinder = new WeightedPathfinder(this);
+			addListener(weightedPathfinder);
+		}
+		return weightedPathfinder;
+	}
+	
+	/**
+	 * Gets the service that finds paths on background threads, creating it
+	 * the first time it is needed.
+	 * @return The pathfinding service.
+	 */
+	public PathfindingService getPathfindingService() {
+		if (pathfindingService == null) {
+			pathfindingService = new PathfindingService(this);
+		}
+		return pathfindingService;
+	}
+	
+	/**
+	 * Gets the navigation graph for characters of a safe level.
+	 * @param safeLevel The safe level of the character.
+	 * @return The navigation graph.
+	 */
+	public NavGraph getNavGraph(int safeLevel) {
+		if (navGraphs[safeLevel] == null) {
+			navGraphs[safeLevel] = new NavGraph(this, safeLevel);
+			addListener(navGraphs[safeLevel]);
+		}
+		return navGraphs[safeLevel];
+	}
+	
+	/**
+	 * Gets the hierarchical view of the map used to find long paths on big
+	 * levels, for characters of a safe level.
+	 * @param safeLevel The safe level of the character.
+	 * @return The cluster graph.
+	 */
+	public ClusterGraph getClusterGraph(int safeLevel) {
+		if (clusterGraphs[safeLevel] == null) {
+			clusterGraphs[safeLevel] = new ClusterGraph(this, safeLevel);
+		}
+		return clusterGraphs[safeLevel];
+	}
+	
+	/**
+	 * Gets the connected parts of the map for characters of a safe level,
+	 * used to tell quickly if a cell can be reached at all.
+	 * @param safeLevel The safe level of the character.
+	 * @return The connected components.
+	 */
+	public ConnectedComponents getComponents(int safeLevel) {
+		if (components[safeLevel] == null) {
+			components[safeLevel] = new ConnectedComponents(this, safeLevel);
+			addListener(components[safeLevel]);
+		}
+		return components[safeLevel];
+	}
+	
+	/**
+	 * Gets the landmarks that give A* a better H Cost, for characters of a
+	 * safe level.
+	 * @param safeLevel The safe level of the character.
+	 * @return The landmarks.
+	 */
+	public Landmarks getLandmarks(int safeLevel) {
+		if (landmarks[safeLevel] == null) {
+			landmarks[safeLevel] = new Landmarks(this, safeLevel, Landmarks.DEFAULT_COUNT);
+		}
+		return landmarks[safeLevel];
+	}
+	
+	/**
+	 * Gets the chase field towards a target that is shared by all enemies
+	 * chasing it, creating it the first time it is needed.
+	 * @param target The character being chased.
+	 * @return The chase field.
+	 */
+	public ChaseField getChaseField(Character target) {
+		if (chaseField == null || chaseField.getTarget() != target) {
+			chaseField = new ChaseField(this, target, BasicCell.BASIC_CELL_SAFELEVEL);
+		}
+		return chaseField;
+	}
+	
+	/**
+	 * Gets the table of cells reserved by the enemies planning together,
+	 * creating it the first time it is needed.
+	 * @return The reservation table.
+	 */
+	public ReservationTable getReservations() {
+		if (reservations == null) {
+			reservations = new ReservationTable();
+		}
+		return reservations;
 	}
 	
 	/**
@@ -75,4 +437,93 @@ public class Map {
 		return mapHeight;
 	}
 
+	/**
+	 * Records that a cell has changed and tells every listener.
+	 * @param x The x position
+	 * @param y The y position
+	 */
+	private void cellChanged(int x, int y) {
+		updatePassable(x, y);
+		version++;
+		regionVersions[(y / REGION_SIZE) * regionsAcross + x / REGION_SIZE] = version;
+		for (int i = 0; i < listenerCount; i++) {
+			listeners[i].cellChanged(x, y, version);
+		}
+	}
+	
+	/**
+	 * Records that a list of cells have changed.
+	 * @param cells The cells, as y * width + x.
+	 */
+	private void cellsChanged(int[] cells) {
+		for (int i = 0; i < cells.length; i++) {
+			cellChanged(cells[i] % mapWidth, cells[i] / mapWidth);
+		}
+	}
+	
+	/**
+	 * Sets the passable bits of every cell for every safe level.
+	 */
+	private void buildPassable() {
+		passable = new long[BasicCell.WALL_SAFELEVEL + 1][(stride * (mapHeight + 2) + 63) / 64];
+		for (int y = 0; y < mapHeight; y++) {
+			for (int x = 0; x < mapWidth; x++) {
+				updatePassable(x, y);
+			}
+		}
+	}
+	
+	/**
+	 * Sets the passable bits of a cell from its safe level, which for a 
+	 * deadly cell depends on the items the player has picked up.
+	 * @param x The x position
+	 * @param y The y position
+	 */
+	private void updatePassable(int x, int y) {
+		int index = getPaddedIndex(x, y);
+		int cellLevel = tiles.getSafeLevel(x, y);
+		for (int safeLevel = 0; safeLevel < passable.length; safeLevel++) {
+			if (cellLevel <= safeLevel) {
+				passable[safeLevel][index >>> 6] |= 1L << index;
+			} else {
+				passable[safeLevel][index >>> 6] &= ~(1L << index);
+			}
+		}
+	}
+	
+	/**
+	 * Finds where all the water and wind cells are.
+	 */
+	private void findDeadlyCells() {
+		int waterCount = 0;
+		int windCount = 0;
+		for (int y = 0; y < mapHeight; y++) {
+			for (int x = 0; x < mapWidth; x++) {
+				byte code = tiles.getCode(x, y);
+				if (code == TileStore.WATER) {
+					waterCount++;
+				} else if (code == TileStore.WIND) {
+					windCount++;
+				}
+			}
+		}
+		
+		waterCells = new int[waterCount];
+		windCells = new int[windCount];
+		waterCount = 0;
+		windCount = 0;
+		for (int y = 0; y < mapHeight; y++) {
+			for (int x = 0; x < mapWidth; x++) {
+				byte code = tiles.getCode(x, y);
+				if (code == TileStore.WATER) {
+					waterCells[waterCount] = y * mapWidth + x;
+					waterCount++;
+				} else if (code == TileStore.WIND) {
+					windCells[windCount] = y * mapWidth + x;
+					windCount++;
+				}
+			}
+		}
+	}
+
 }
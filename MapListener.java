@@ -0,0 +1,20 @@
+package application;
+
+/**
+ * Something that keeps data worked out from a Map and needs to know when a
+ * cell of the map changes.
+ * 
+ * @author William Conroy
+ * @version 1.0
+ */
+public interface MapListener {
+
+	/**
+	 * Called after a cell of the map has changed.
+	 * 
+	 * @param x The x position of the changed cell.
+	 * @param y The y position of the changed cell.
+	 * @param version The version of the map after the change.
+	 */
+	void cellChanged(int x, int y, int version);
+}
@@ -0,0 +1,459 @@
+package application;
+
+/**
+ * The navigation graph of a map for characters of one safe level. For every
+ * cell it stores a 4-bit mask of the neighbouring cells such a character can
+ * move onto, with bit (1 << direction) set for each open direction. The
+ * masks are built once and only the cells around a change are recomputed
+ * when the map reports a change.
+ *
+ * Moving onto a teleporter puts a character next to the linked teleporter,
+ * one step on in the same direction, so the neighbour in that direction is
+ * that cell rather than the teleporter. Every character can use them, so
+ * each teleporter adds an edge between the cells either side of the pair.
+ *
+ * @author William Conroy
+ * @version 1.7
+ */
+public class NavGraph implements MapListener, SearchGraph {
+	public static final int DIRECTIONS = 4;
+	// How many recent changes are remembered.
+	public static final int CHANGE_LOG_SIZE = 32;
+	// The bit of a mask that is set if the cell itself can be moved onto.
+	public static final int OPEN_BIT = 1 << DIRECTIONS;
+	// The bits of a mask that hold the open directions.
+	public static final int DIRECTION_BITS = OPEN_BIT - 1;
+
+	// How far across and down the neighbour in each direction is.
+	private static final int[] OFFSET_X = { 0, 1, 0, -1 };
+	private static final int[] OFFSET_Y = { -1, 0, 1, 0 };
+
+	private Map mapLevel;
+	private int width;
+	private int height;
+	private int safeLevel;
+	private byte[] masks;
+	// How many times the graph has been changed since it was built.
+	private int changeCount;
+	// The cells of the most recent changes.
+	private int[] changeLog;
+	// How far away in the index the neighbour in each direction is.
+	private int[] deltas;
+	// The index of the teleporter each teleporter is linked to, or NO_NODE.
+	private int[] links;
+	// The index of every teleporter on the map.
+	private int[] teleporters;
+	private int teleporterCount;
+	// The last snapshot taken, kept until the graph changes.
+	private NavSnapshot snapshot;
+
+	/**
+	 * Builds the navigation graph of a map.
+	 *
+	 * @param mapLevel
+	 *            the map.
+	 * @param safeLevel
+	 *            the safe level of the characters using this graph.
+	 */
+	public NavGraph(Map mapLevel, int safeLevel) {
+		this.mapLevel = mapLevel;
+		this.width = mapLevel.getMapWidth();
+		this.height = mapLevel.getMapHeight();
+		this.safeLevel = safeLevel;
+		this.masks = new byte[this.width * this.height];
+		this.changeLog = new int[CHANGE_LOG_SIZE];
+
+		this.deltas = new int[DIRECTIONS];
+		this.deltas[Character.DIRECTION_UP] = -this.width;
+		this.deltas[Character.DIRECTION_RIGHT] = 1;
+		this.deltas[Character.DIRECTION_DOWN] = this.width;
+		this.deltas[Character.DIRECTION_LEFT] = -1;
+
+		this.links = new int[this.width * this.height];
+		this.build();
+	}
+
+	/**
+	 * Gets the directions that can be moved in from a cell.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 * @return the mask of open directions.
+	 */
+	public int getNeighbourMask(int node) {
+		return this.masks[node] & DIRECTION_BITS;
+	}
+
+	/**
+	 * Checks if a character of this safe level can move onto a cell.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 * @return true if it can.
+	 */
+	public boolean isOpen(int node) {
+		return (this.masks[node] & OPEN_BIT) != 0;
+	}
+
+	/**
+	 * Copies the masks of every cell, so they can be read on another thread
+	 * while the graph keeps changing. Each mask has the open directions and
+	 * OPEN_BIT if the cell itself can be moved onto.
+	 *
+	 * @return the copy, indexed by y * width + x.
+	 */
+	public byte[] copyMasks() {
+		return this.masks.clone();
+	}
+
+	/**
+	 * Copies the teleporter links of every cell, to go with copyMasks().
+	 *
+	 * @return the copy, indexed by y * width + x, holding the index of the
+	 *         linked teleporter or NO_NODE.
+	 */
+	public int[] copyLinks() {
+		return this.links.clone();
+	}
+
+	/**
+	 * Gets a copy of the graph that never changes, for searches on other
+	 * threads. The same copy is handed out until the graph changes.
+	 *
+	 * @return the snapshot.
+	 */
+	public NavSnapshot getSnapshot() {
+		if (this.snapshot == null || this.snapshot.getChangeCount() != this.changeCount) {
+			this.snapshot = new NavSnapshot(this.width, this.safeLevel, this.changeCount, this.masks.clone(),
+					this.links.clone(), this.teleporters.clone());
+		}
+		return this.snapshot;
+	}
+
+	/**
+	 * Gets how many teleporters there are on the map.
+	 *
+	 * @return the number of teleporters.
+	 */
+	public int getTeleporterCount() {
+		return this.teleporterCount;
+	}
+
+	/**
+	 * Gets one of the teleporters on the map.
+	 *
+	 * @param i
+	 *            the number of the teleporter, from 0 to getTeleporterCount().
+	 * @return the index of the teleporter.
+	 */
+	public int getTeleporter(int i) {
+		return this.teleporters[i];
+	}
+
+	/**
+	 * Gets the teleporter a cell is linked to.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 * @return the index of the linked teleporter, or NO_NODE if the cell is
+	 *         not a teleporter.
+	 */
+	public int getLink(int node) {
+		return this.links[node];
+	}
+
+	/**
+	 * Checks if a move from a cell in a direction is possible.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 * @param dir
+	 *            the direction.
+	 * @return true if the neighbour in that direction can be moved onto.
+	 */
+	public boolean canMove(int node, int dir) {
+		return (this.masks[node] & (1 << dir)) != 0;
+	}
+
+	/**
+	 * Gets the neighbour of a cell in a direction.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 * @param dir
+	 *            the direction.
+	 * @return the index of the neighbour, which is past the linked
+	 *         teleporter if the cell in that direction is a teleporter.
+	 */
+	public int getNeighbour(int node, int dir) {
+		int next = node + this.deltas[dir];
+		int link = this.links[next];
+		if (link == GridPathfinder.NO_NODE) {
+			return next;
+		}
+		return link + this.deltas[dir];
+	}
+
+	/**
+	 * Checks if the cell next to a cell in a direction is a teleporter, so
+	 * a move that way ends up somewhere else on the map.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 * @param dir
+	 *            the direction, which must not lead off the map.
+	 * @return true if the move goes through a teleporter.
+	 */
+	public boolean isTeleport(int node, int dir) {
+		return this.links[node + this.deltas[dir]] != GridPathfinder.NO_NODE;
+	}
+
+	/**
+	 * Recomputes the cells whose masks depend on a cell that has changed,
+	 * which are the cell itself, its four neighbours and any cell a
+	 * teleporter next to it leads back to. Every cell whose moves changed
+	 * is logged, so the far side of a teleporter is logged too.
+	 *
+	 * @param x
+	 *            the x position of the changed cell.
+	 * @param y
+	 *            the y position of the changed cell.
+	 */
+	public void updateCell(int x, int y) {
+		int node = y * this.width + x;
+		if (this.links[node] != this.findLink(x, y)) {
+			// A teleporter has been added or taken away, which can change any
+			// cell, so build everything again and leave the log behind so
+			// nothing relies on it.
+			this.build();
+			this.changeCount += CHANGE_LOG_SIZE;
+			return;
+		}
+
+		this.updateMask(x, y);
+		this.updateMask(x, y - 1);
+		this.updateMask(x + 1, y);
+		this.updateMask(x, y + 1);
+		this.updateMask(x - 1, y);
+		this.log(node);
+
+		// A teleporter on the way into this cell means the cell at the other
+		// end of the teleporter can now, or can no longer, move here.
+		for (int dir = 0; dir < DIRECTIONS; dir++) {
+			int fromX = x - OFFSET_X[dir];
+			int fromY = y - OFFSET_Y[dir];
+			if (!this.isOnMap(fromX, fromY)) {
+				continue;
+			}
+			int link = this.links[fromY * this.width + fromX];
+			if (link == GridPathfinder.NO_NODE) {
+				continue;
+			}
+			int farX = link % this.width - OFFSET_X[dir];
+			int farY = link / this.width - OFFSET_Y[dir];
+			if (this.isOnMap(farX, farY)) {
+				this.updateMask(farX, farY);
+				this.log(farY * this.width + farX);
+			}
+		}
+	}
+
+	/**
+	 * Recomputes the cells around a cell of the map that has changed.
+	 *
+	 * @param x
+	 *            the x position of the changed cell.
+	 * @param y
+	 *            the y position of the changed cell.
+	 * @param version
+	 *            the version of the map after the change.
+	 */
+	public void cellChanged(int x, int y, int version) {
+		this.updateCell(x, y);
+	}
+
+	/**
+	 * Gets how many times the graph has changed, so anything derived from
+	 * it can tell when it is out of date.
+	 *
+	 * @return the number of changes.
+	 */
+	public int getChangeCount() {
+		return this.changeCount;
+	}
+
+	/**
+	 * Checks if a change is still in the change log.
+	 *
+	 * @param change
+	 *            the number of the change, counting from 0.
+	 * @return true if the changed cell can still be looked up.
+	 */
+	public boolean isLogged(int change) {
+		return change < this.changeCount && this.changeCount - change <= CHANGE_LOG_SIZE;
+	}
+
+	/**
+	 * Gets the cell that was changed by a change in the change log.
+	 *
+	 * @param change
+	 *            the number of the change, counting from 0.
+	 * @return the index of the changed cell.
+	 */
+	public int getChangedNode(int change) {
+		return this.changeLog[change % CHANGE_LOG_SIZE];
+	}
+
+	/**
+	 * Gets the width of the map, so indexes can be turned into positions.
+	 *
+	 * @return the width of the map.
+	 */
+	public int getWidth() {
+		return this.width;
+	}
+
+	/**
+	 * Gets the safe level of the characters using this graph.
+	 *
+	 * @return the safe level.
+	 */
+	public int getSafeLevel() {
+		return this.safeLevel;
+	}
+
+	/**
+	 * Finds every teleporter and works out the mask of every cell.
+	 */
+	private void build() {
+		this.teleporterCount = 0;
+		for (int y = 0; y < this.height; y++) {
+			for (int x = 0; x < this.width; x++) {
+				int link = this.findLink(x, y);
+				this.links[y * this.width + x] = link;
+				if (link != GridPathfinder.NO_NODE) {
+					this.teleporterCount++;
+				}
+			}
+		}
+
+		this.teleporters = new int[this.teleporterCount];
+		int count = 0;
+		for (int node = 0; node < this.links.length; node++) {
+			if (this.links[node] != GridPathfinder.NO_NODE) {
+				this.teleporters[count++] = node;
+			}
+		}
+
+		for (int y = 0; y < this.height; y++) {
+			for (int x = 0; x < this.width; x++) {
+				this.masks[y * this.width + x] = this.calculateMask(x, y);
+			}
+		}
+	}
+
+	/**
+	 * Adds a changed cell to the change log.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 */
+	private void log(int node) {
+		this.changeLog[this.changeCount % CHANGE_LOG_SIZE] = node;
+		this.changeCount++;
+	}
+
+	/**
+	 * Looks up the teleporter a cell of the map is linked to.
+	 *
+	 * @param x
+	 *            the x position of the cell.
+	 * @param y
+	 *            the y position of the cell.
+	 * @return the index of the linked teleporter, or NO_NODE if the cell is
+	 *         not a teleporter.
+	 */
+	private int findLink(int x, int y) {
+		TileStore tiles = this.mapLevel.getTiles();
+		if (tiles.getCode(x, y) != TileStore.TELEPORTER) {
+			return GridPathfinder.NO_NODE;
+		}
+		return tiles.getPayload(x, y);
+	}
+
+	/**
+	 * Checks if a position is on the map.
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @return true if it is.
+	 */
+	private boolean isOnMap(int x, int y) {
+		return x >= 0 && y >= 0 && x < this.width && y < this.height;
+	}
+
+	/**
+	 * Recomputes the mask of one cell if it is on the map.
+	 *
+	 * @param x
+	 *            the x position of the cell.
+	 * @param y
+	 *            the y position of the cell.
+	 */
+	private void updateMask(int x, int y) {
+		if (this.isOnMap(x, y)) {
+			this.masks[y * this.width + x] = this.calculateMask(x, y);
+		}
+	}
+
+	/**
+	 * Works out which neighbours of a cell can be moved onto, going through
+	 * any teleporter in the way.
+	 *
+	 * @param x
+	 *            the x position of the cell.
+	 * @param y
+	 *            the y position of the cell.
+	 * @return the mask of open directions, with OPEN_BIT if the cell itself
+	 *         can be moved onto.
+	 */
+	private byte calculateMask(int x, int y) {
+		// Nothing can stand on a teleporter, so it is never open.
+		int node = y * this.width + x;
+		int mask = this.links[node] == GridPathfinder.NO_NODE && this.isPassable(x, y) ? OPEN_BIT : 0;
+		for (int dir = 0; dir < DIRECTIONS; dir++) {
+			int nextX = x + OFFSET_X[dir];
+			int nextY = y + OFFSET_Y[dir];
+			if (!this.isOnMap(nextX, nextY)) {
+				continue;
+			}
+			int link = this.links[nextY * this.width + nextX];
+			if (link != GridPathfinder.NO_NODE) {
+				nextX = link % this.width + OFFSET_X[dir];
+				nextY = link / this.width + OFFSET_Y[dir];
+				if (!this.isOnMap(nextX, nextY)) {
+					continue;
+				}
+			}
+			if (this.isPassable(nextX, nextY)) {
+				mask |= 1 << dir;
+			}
+		}
+		return (byte) mask;
+	}
+
+	/**
+	 * Checks if a cell can be moved onto by characters of this safe level.
+	 *
+	 * @param x
+	 *            the x position of the cell.
+	 * @param y
+	 *            the y position of the cell.
+	 * @return true if it can be moved onto.
+	 */
+	private boolean isPassable(int x, int y) {
+		return this.mapLevel.isPassable(x, y, this.safeLevel);
+	}
+}
@@ -0,0 +1,162 @@
+package application;
+
+/**
+ * A copy of a NavGraph as it was at one moment, which never changes, so
+ * searches on other threads can read it while the game goes on changing
+ * the map. It answers the same questions as the graph it was taken from.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.1
+ */
+public final class NavSnapshot implements SearchGraph {
+	private final int width;
+	private final int safeLevel;
+	// The change count of the graph when the copy was taken.
+	private final int changeCount;
+	private final byte[] masks;
+	private final int[] links;
+	private final int[] teleporters;
+	// How far away in the index the neighbour in each direction is.
+	private final int[] deltas;
+
+	/**
+	 * Creates a snapshot from copies of a graph's arrays. The arrays must
+	 * not be changed afterwards.
+	 *
+	 * @param width
+	 *            the width of the map.
+	 * @param safeLevel
+	 *            the safe level of the graph.
+	 * @param changeCount
+	 *            the change count of the graph.
+	 * @param masks
+	 *            the masks of every cell.
+	 * @param links
+	 *            the teleporter links of every cell.
+	 * @param teleporters
+	 *            the index of every teleporter.
+	 */
+	NavSnapshot(int width, int safeLevel, int changeCount, byte[] masks, int[] links, int[] teleporters) {
+		this.width = width;
+		this.safeLevel = safeLevel;
+		this.changeCount = changeCount;
+		this.masks = masks;
+		this.links = links;
+		this.teleporters = teleporters;
+		this.deltas = new int[NavGraph.DIRECTIONS];
+		this.deltas[Character.DIRECTION_UP] = -width;
+		this.deltas[Character.DIRECTION_RIGHT] = 1;
+		this.deltas[Character.DIRECTION_DOWN] = width;
+		this.deltas[Character.DIRECTION_LEFT] = -1;
+	}
+
+	/**
+	 * Gets the directions that can be moved in from a cell.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 * @return the mask of open directions.
+	 */
+	public int getNeighbourMask(int node) {
+		return this.masks[node] & NavGraph.DIRECTION_BITS;
+	}
+
+	/**
+	 * Checks if a move from a cell in a direction is possible.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 * @param dir
+	 *            the direction.
+	 * @return true if the neighbour in that direction can be moved onto.
+	 */
+	public boolean canMove(int node, int dir) {
+		return (this.masks[node] & (1 << dir)) != 0;
+	}
+
+	/**
+	 * Gets the neighbour of a cell in a direction, past the linked
+	 * teleporter if the cell in that direction is a teleporter.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 * @param dir
+	 *            the direction.
+	 * @return the index of the neighbour.
+	 */
+	public int getNeighbour(int node, int dir) {
+		int next = node + this.deltas[dir];
+		int link = this.links[next];
+		if (link == GridPathfinder.NO_NODE) {
+			return next;
+		}
+		return link + this.deltas[dir];
+	}
+
+	/**
+	 * Gets how many teleporters there are on the map.
+	 *
+	 * @return the number of teleporters.
+	 */
+	public int getTeleporterCount() {
+		return this.teleporters.length;
+	}
+
+	/**
+	 * Gets one of the teleporters on the map.
+	 *
+	 * @param i
+	 *            the number of the teleporter.
+	 * @return the index of the teleporter.
+	 */
+	public int getTeleporter(int i) {
+		return this.teleporters[i];
+	}
+
+	/**
+	 * Gets the teleporter a cell is linked to.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 * @return the index of the linked teleporter, or NO_NODE.
+	 */
+	public int getLink(int node) {
+		return this.links[node];
+	}
+
+	/**
+	 * Gets the number of cells on the map.
+	 *
+	 * @return the number of cells.
+	 */
+	public int getSize() {
+		return this.masks.length;
+	}
+
+	/**
+	 * Gets the width of the map.
+	 *
+	 * @return the width.
+	 */
+	public int getWidth() {
+		return this.width;
+	}
+
+	/**
+	 * Gets the safe level of the graph the snapshot was taken from.
+	 *
+	 * @return the safe level.
+	 */
+	public int getSafeLevel() {
+		return this.safeLevel;
+	}
+
+	/**
+	 * Gets the change count of the graph when the snapshot was taken.
+	 *
+	 * @return the change count.
+	 */
+	public int getChangeCount() {
+		return this.changeCount;
+	}
+}
@@ -0,0 +1,291 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * An indexed binary min-heap of grid nodes used as the open set of the
+ * pathfinding algorithms. Nodes are identified by their index on the grid
+ * and ordered by their F Cost. Nodes with the same F Cost come out in the
+ * order they were added, unless the caller gives its own tie break value.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.1
+ */
+public class NodeHeap {
+	private static final int NOT_IN_HEAP = -1;
+
+	// The nodes in heap order.
+	private int[] heap;
+	// Where each node is stored in the heap, or NOT_IN_HEAP.
+	private int[] position;
+	// The F Cost of each node.
+	private float[] priority;
+	// When each node was added, or the caller's tie break value.
+	private int[] order;
+	private int size;
+	private int counter;
+
+	/**
+	 * Creates an empty heap that can hold all nodes of a grid.
+	 *
+	 * @param capacity
+	 *            the number of nodes on the grid.
+	 */
+	public NodeHeap(int capacity) {
+		this.heap = new int[capacity];
+		this.position = new int[capacity];
+		this.priority = new float[capacity];
+		this.order = new int[capacity];
+		Arrays.fill(this.position, NOT_IN_HEAP);
+		this.size = 0;
+		this.counter = 0;
+	}
+
+	/**
+	 * Adds a node to the heap.
+	 *
+	 * @param node
+	 *            the index of the node.
+	 * @param fCost
+	 *            the F Cost of the node.
+	 */
+	public void add(int node, float fCost) {
+		this.add(node, fCost, this.counter++);
+	}
+
+	/**
+	 * Adds a node to the heap with a value that decides between nodes with
+	 * the same F Cost, lower coming first.
+	 *
+	 * @param node
+	 *            the index of the node.
+	 * @param fCost
+	 *            the F Cost of the node.
+	 * @param tieBreak
+	 *            the tie break value of the node.
+	 */
+	public void add(int node, float fCost, int tieBreak) {
+		this.priority[node] = fCost;
+		this.order[node] = tieBreak;
+		this.heap[this.size] = node;
+		this.position[node] = this.size;
+		this.size++;
+		this.siftUp(this.size - 1);
+	}
+
+	/**
+	 * Lowers the F Cost of a node that is already in the heap.
+	 *
+	 * @param node
+	 *            the index of the node.
+	 * @param fCost
+	 *            the new, lower F Cost of the node.
+	 */
+	public void decreaseKey(int node, float fCost) {
+		this.priority[node] = fCost;
+		this.siftUp(this.position[node]);
+	}
+
+	/**
+	 * Changes the F Cost and tie break value of a node that is already in
+	 * the heap, in either direction.
+	 *
+	 * @param node
+	 *            the index of the node.
+	 * @param fCost
+	 *            the new F Cost of the node.
+	 * @param tieBreak
+	 *            the new tie break value of the node.
+	 */
+	public void update(int node, float fCost, int tieBreak) {
+		this.priority[node] = fCost;
+		this.order[node] = tieBreak;
+		int slot = this.position[node];
+		this.siftUp(slot);
+		if (this.heap[slot] == node) {
+			this.siftDown(slot);
+		}
+	}
+
+	/**
+	 * Takes a node out of the heap if it is in it.
+	 *
+	 * @param node
+	 *            the index of the node.
+	 */
+	public void remove(int node) {
+		int slot = this.position[node];
+		if (slot == NOT_IN_HEAP) {
+			return;
+		}
+		this.size--;
+		this.position[node] = NOT_IN_HEAP;
+
+		if (slot < this.size) {
+			int last = this.heap[this.size];
+			this.heap[slot] = last;
+			this.position[last] = slot;
+			this.siftUp(slot);
+			if (this.heap[slot] == last) {
+				this.siftDown(slot);
+			}
+		}
+	}
+
+	/**
+	 * Gets the node with the lowest F Cost without removing it.
+	 *
+	 * @return the index of the node.
+	 */
+	public int peek() {
+		return this.heap[0];
+	}
+
+	/**
+	 * Removes the node with the lowest F Cost.
+	 *
+	 * @return the index of the removed node.
+	 */
+	public int poll() {
+		int top = this.heap[0];
+		this.size--;
+		this.position[top] = NOT_IN_HEAP;
+
+		if (this.size > 0) {
+			this.heap[0] = this.heap[this.size];
+			this.position[this.heap[0]] = 0;
+			this.siftDown(0);
+		}
+
+		return top;
+	}
+
+	/**
+	 * Checks if a node is in the heap.
+	 *
+	 * @param node
+	 *            the index of the node.
+	 * @return true if the node is in the heap.
+	 */
+	public boolean contains(int node) {
+		return this.position[node] != NOT_IN_HEAP;
+	}
+
+	/**
+	 * Checks if the heap is empty.
+	 *
+	 * @return true if there are no nodes in the heap.
+	 */
+	public boolean isEmpty() {
+		return this.size == 0;
+	}
+
+	/**
+	 * Gets the number of nodes in the heap.
+	 *
+	 * @return the number of nodes.
+	 */
+	public int size() {
+		return this.size;
+	}
+
+	/**
+	 * Gets the F Cost a node was last added or decreased with.
+	 *
+	 * @param node
+	 *            the index of the node.
+	 * @return the F Cost of the node.
+	 */
+	public float getPriority(int node) {
+		return this.priority[node];
+	}
+
+	/**
+	 * Gets the tie break value of a node.
+	 *
+	 * @param node
+	 *            the index of the node.
+	 * @return the tie break value.
+	 */
+	public int getTieBreak(int node) {
+		return this.order[node];
+	}
+
+	/**
+	 * Removes all nodes from the heap. Only the nodes still in the heap are
+	 * visited so this does not depend on the size of the grid.
+	 */
+	public void clear() {
+		for (int i = 0; i < this.size; i++) {
+			this.position[this.heap[i]] = NOT_IN_HEAP;
+		}
+		this.size = 0;
+		this.counter = 0;
+	}
+
+	/**
+	 * Checks if node a should come out of the heap before node b.
+	 *
+	 * @param a
+	 *            the index of the first node.
+	 * @param b
+	 *            the index of the second node.
+	 * @return true if a comes first.
+	 */
+	private boolean isBefore(int a, int b) {
+		if (this.priority[a] != this.priority[b]) {
+			return this.priority[a] < this.priority[b];
+		}
+		return this.order[a] < this.order[b];
+	}
+
+	/**
+	 * Moves a node up the heap until its parent comes before it.
+	 *
+	 * @param slot
+	 *            the heap position of the node.
+	 */
+	private void siftUp(int slot) {
+		int node = this.heap[slot];
+		while (slot > 0) {
+			int parentSlot = (slot - 1) / 2;
+			int parent = this.heap[parentSlot];
+			if (!this.isBefore(node, parent)) {
+				break;
+			}
+			this.heap[slot] = parent;
+			this.position[parent] = slot;
+			slot = parentSlot;
+		}
+		this.heap[slot] = node;
+		this.position[node] = slot;
+	}
+
+	/**
+	 * Moves a node down the heap until it comes before its children.
+	 *
+	 * @param slot
+	 *            the heap position of the node.
+	 */
+	private void siftDown(int slot) {
+		int node = this.heap[slot];
+		int half = this.size / 2;
+		while (slot < half) {
+			int childSlot = 2 * slot + 1;
+			int child = this.heap[childSlot];
+			int rightSlot = childSlot + 1;
+			if (rightSlot < this.size && this.isBefore(this.heap[rightSlot], child)) {
+				childSlot = rightSlot;
+				child = this.heap[childSlot];
+			}
+			if (!this.isBefore(child, node)) {
+				break;
+			}
+			this.heap[slot] = child;
+			this.position[child] = slot;
+			slot = childSlot;
+		}
+		this.heap[slot] = node;
+		this.position[node] = slot;
+	}
+}
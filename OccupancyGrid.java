@@ -0,0 +1,95 @@
+package application;
+
+/**
+ * Counts how many enemies are on each cell of a map, so checking if a cell
+ * has an enemy on it takes the same time however many enemies there are.
+ * More than one enemy can be on a cell, so a count is kept rather than
+ * who is there. The Level moves the counts along as the enemies move.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.0
+ */
+public class OccupancyGrid {
+	private int width;
+	// How many enemies are on each cell, y * width + x.
+	private int[] counts;
+	private int total;
+
+	/**
+	 * Creates a grid with no one on it.
+	 *
+	 * @param width
+	 *            the width of the map.
+	 * @param height
+	 *            the height of the map.
+	 */
+	public OccupancyGrid(int width, int height) {
+		this.width = width;
+		this.counts = new int[width * height];
+		this.total = 0;
+	}
+
+	/**
+	 * Records that an enemy is on a cell.
+	 *
+	 * @param cell
+	 *            the cell.
+	 */
+	public void add(BasicCell cell) {
+		this.counts[this.indexOf(cell)]++;
+		this.total++;
+	}
+
+	/**
+	 * Records that an enemy has left a cell.
+	 *
+	 * @param cell
+	 *            the cell.
+	 */
+	public void remove(BasicCell cell) {
+		this.counts[this.indexOf(cell)]--;
+		this.total--;
+	}
+
+	/**
+	 * Checks if any enemy is on a cell.
+	 *
+	 * @param cell
+	 *            the cell.
+	 * @return true if there is one.
+	 */
+	public boolean isOccupied(BasicCell cell) {
+		return this.counts[this.indexOf(cell)] != 0;
+	}
+
+	/**
+	 * Gets how many enemies are on a cell.
+	 *
+	 * @param cell
+	 *            the cell.
+	 * @return the number of enemies.
+	 */
+	public int getCount(BasicCell cell) {
+		return this.counts[this.indexOf(cell)];
+	}
+
+	/**
+	 * Gets how many enemies are on the grid.
+	 *
+	 * @return the number of enemies.
+	 */
+	public int size() {
+		return this.total;
+	}
+
+	/**
+	 * Gets the index of a cell.
+	 *
+	 * @param cell
+	 *            the cell.
+	 * @return the index, y * width + x.
+	 */
+	private int indexOf(BasicCell cell) {
+		return cell.getY() * this.width + cell.getX();
+	}
+}
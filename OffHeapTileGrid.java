@@ -0,0 +1,346 @@
+package application;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Holds the tiles of a map outside the Java heap, one byte per tile row by
+ * row, so even the biggest levels give the garbage collector nothing to
+ * look through. The tiles can also be saved to a file and later opened
+ * straight from it with the file mapped into memory, so a level does not
+ * have to be read and copied in. Changes made to a mapped grid, such as
+ * by setToBasic(), only change the copy in memory and never the file.
+ *
+ * The file holds a header of MAGIC, the width, the height, the number of
+ * payloads and the length and last modified time of the level file it was
+ * saved from, then the code of every tile, then each payload as the index
+ * of its tile and its value. A tile file whose level file has since been
+ * changed is out of date and should not be opened in its place.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.2
+ */
+public class OffHeapTileGrid extends TileStore {
+	// The first four bytes of a tile file, changed with the layout.
+	public static final int MAGIC = 0x39414D51;
+	// The ending of a tile file saved next to a level file.
+	public static final String FILE_ENDING = ".tiles";
+	private static final int HEADER_SIZE = 4 * Integer.BYTES + 2 * Long.BYTES;
+
+	private int width;
+	private int height;
+	// The type of every tile, y * width + x, kept outside the heap.
+	private ByteBuffer codes;
+	// The payload of the tiles that have one, keyed on y * width + x.
+	private LongIntHashMap payloads;
+	private boolean mapped;
+
+	/**
+	 * Creates a grid of floor tiles outside the heap.
+	 *
+	 * @param width
+	 *            the width of the map.
+	 * @param height
+	 *            the height of the map.
+	 */
+	public OffHeapTileGrid(int width, int height) {
+		this(width, height, ByteBuffer.allocateDirect(width * height), false);
+	}
+
+	/**
+	 * Creates a grid over codes that are already in memory.
+	 *
+	 * @param width
+	 *            the width of the map.
+	 * @param height
+	 *            the height of the map.
+	 * @param codes
+	 *            the code of every tile, starting at position 0.
+	 * @param mapped
+	 *            true if the codes are mapped from a file.
+	 */
+	private OffHeapTileGrid(int width, int height, ByteBuffer codes, boolean mapped) {
+		this.width = width;
+		this.height = height;
+		this.codes = codes;
+		this.payloads = new LongIntHashMap(16);
+		this.mapped = mapped;
+	}
+
+	/**
+	 * Opens a tile file by mapping it into memory.
+	 *
+	 * @param file
+	 *            the tile file.
+	 * @return the grid.
+	 * @throws IOException
+	 *             if the file cannot be read or is not a tile file.
+	 */
+	public static OffHeapTileGrid open(Path file) throws IOException {
+		if (!Files.isWritable(file)) {
+			return openCopy(file);
+		}
+		// A private mapping lets the game change tiles without writing the
+		// changes back to the file, but needs the file open for writing.
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.PRIVATE, 0, channel.size());
+			return fromBuffer(buffer, file, true);
+		}
+	}
+
+	/**
+	 * Opens a tile file that cannot be written to, by mapping it to read
+	 * and copying the tiles into memory outside the heap.
+	 *
+	 * @param file
+	 *            the tile file.
+	 * @return the grid.
+	 * @throws IOException
+	 *             if the file cannot be read or is not a tile file.
+	 */
+	private static OffHeapTileGrid openCopy(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			ByteBuffer buffer = ByteBuffer.allocateDirect(mapped.capacity());
+			buffer.put(mapped);
+			return fromBuffer(buffer, file, false);
+		}
+	}
+
+	/**
+	 * Reads the header and payloads of a tile file in memory and makes a
+	 * grid over its codes.
+	 *
+	 * @param buffer
+	 *            the whole file.
+	 * @param file
+	 *            the tile file, for error messages.
+	 * @param mapped
+	 *            true if the buffer is mapped from the file.
+	 * @return the grid.
+	 * @throws IOException
+	 *             if it is not a tile file.
+	 */
+	private static OffHeapTileGrid fromBuffer(ByteBuffer buffer, Path file, boolean mapped) throws IOException {
+		buffer.order(ByteOrder.BIG_ENDIAN);
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not a tile file: " + file);
+		}
+		int width = buffer.getInt(Integer.BYTES);
+		int height = buffer.getInt(2 * Integer.BYTES);
+		int payloadCount = buffer.getInt(3 * Integer.BYTES);
+		int area = width * height;
+		if (buffer.capacity() != HEADER_SIZE + area + payloadCount * 2L * Integer.BYTES) {
+			throw new IOException("Tile file has the wrong size: " + file);
+		}
+
+		ByteBuffer codes = buffer.duplicate();
+		codes.position(HEADER_SIZE);
+		codes.limit(HEADER_SIZE + area);
+		OffHeapTileGrid grid = new OffHeapTileGrid(width, height, codes.slice(), mapped);
+		int position = HEADER_SIZE + area;
+		for (int i = 0; i < payloadCount; i++) {
+			grid.payloads.put(buffer.getInt(position), buffer.getInt(position + Integer.BYTES));
+			position += 2 * Integer.BYTES;
+		}
+		return grid;
+	}
+
+	/**
+	 * Saves the tiles of a map to a tile file, so it can be opened later
+	 * with open(). The length and last modified time of the level file are
+	 * saved with them, so isUpToDate() can tell when it has changed.
+	 *
+	 * @param tiles
+	 *            the tiles to save.
+	 * @param file
+	 *            the file to write.
+	 * @param levelFile
+	 *            the level file the tiles were read from.
+	 * @throws IOException
+	 *             if the file cannot be written or the level file cannot
+	 *             be looked at.
+	 */
+	public static void save(TileStore tiles, Path file, Path levelFile) throws IOException {
+		long levelLength = Files.size(levelFile);
+		long levelModified = Files.getLastModifiedTime(levelFile).toMillis();
+		int width = tiles.getWidth();
+		int height = tiles.getHeight();
+		int payloadCount = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (tiles.getPayload(x, y) != LongIntHashMap.NO_VALUE) {
+					payloadCount++;
+				}
+			}
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + width * height + payloadCount * 2 * Integer.BYTES);
+		buffer.putInt(MAGIC).putInt(width).putInt(height).putInt(payloadCount);
+		buffer.putLong(levelLength).putLong(levelModified);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				buffer.put(tiles.getCode(x, y));
+			}
+		}
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int payload = tiles.getPayload(x, y);
+				if (payload != LongIntHashMap.NO_VALUE) {
+					buffer.putInt(y * width + x).putInt(payload);
+				}
+			}
+		}
+		buffer.flip();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		}
+	}
+
+	/**
+	 * Gets the tile file kept next to a level file.
+	 *
+	 * @param levelFile
+	 *            the name of the level file.
+	 * @return the path of its tile file, which may not exist.
+	 */
+	public static Path getTileFile(String levelFile) {
+		return Path.of(levelFile + FILE_ENDING);
+	}
+
+	/**
+	 * Checks if there is a tile file next to a level file.
+	 *
+	 * @param levelFile
+	 *            the name of the level file.
+	 * @return true if there is one.
+	 */
+	public static boolean hasTileFile(String levelFile) {
+		return Files.isRegularFile(getTileFile(levelFile));
+	}
+
+	/**
+	 * Checks if a tile file was saved from a level file as it is now, by
+	 * reading only its header. A level file that has changed length or
+	 * been modified since, or a tile file of another layout or that cannot
+	 * be read, makes the tile file out of date.
+	 *
+	 * @param file
+	 *            the tile file.
+	 * @param levelFile
+	 *            the level file.
+	 * @return true if the tile file is up to date with it.
+	 */
+	public static boolean isUpToDate(Path file, Path levelFile) {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			while (header.hasRemaining()) {
+				if (channel.read(header) < 0) {
+					return false;
+				}
+			}
+			return header.getInt(0) == MAGIC
+					&& header.getLong(4 * Integer.BYTES) == Files.size(levelFile)
+					&& header.getLong(4 * Integer.BYTES + Long.BYTES) == Files.getLastModifiedTime(levelFile)
+							.toMillis();
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Checks if the tiles are mapped from a file.
+	 *
+	 * @return true if they are.
+	 */
+	public boolean isMapped() {
+		return this.mapped;
+	}
+
+	/**
+	 * Gets the width of the grid.
+	 *
+	 * @return the width.
+	 */
+	public int getWidth() {
+		return this.width;
+	}
+
+	/**
+	 * Gets the height of the grid.
+	 *
+	 * @return the height.
+	 */
+	public int getHeight() {
+		return this.height;
+	}
+
+	/**
+	 * Gets the type of a tile.
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @return the type code.
+	 */
+	public byte getCode(int x, int y) {
+		return this.codes.get(y * this.width + x);
+	}
+
+	/**
+	 * Gets the payload of a tile.
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @return the payload, or LongIntHashMap.NO_VALUE if it has none.
+	 */
+	public int getPayload(int x, int y) {
+		return this.payloads.get(y * this.width + x);
+	}
+
+	/**
+	 * Stores a tile that has no payload, for setTile().
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @param code
+	 *            the type code.
+	 */
+	protected void putTile(int x, int y, byte code) {
+		int index = y * this.width + x;
+		this.codes.put(index, code);
+		this.payloads.remove(index);
+	}
+
+	/**
+	 * Stores a tile with a payload, for setTile().
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @param code
+	 *            the type code.
+	 * @param payload
+	 *            the payload, not negative.
+	 */
+	protected void putTile(int x, int y, byte code, int payload) {
+		int index = y * this.width + x;
+		this.codes.put(index, code);
+		this.payloads.put(index, payload);
+	}
+}
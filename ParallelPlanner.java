@@ -0,0 +1,221 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Works out the moves of the smart enemies of a level at the same time on
+ * a ForkJoin pool. Every search reads a NavSnapshot of the map, the
+ * landmark tables and the positions of the enemies and their targets,
+ * all taken before any search starts and none of which change, and each
+ * worker thread keeps its own SnapshotSearch, so the searches share
+ * nothing. The paths are handed back to the enemies in the order of the
+ * enemy list, so the moves are the same whichever order the searches
+ * finish in.
+ *
+ * Each search may expand an equal part of what is left of the
+ * pathfinder's budget for the tick. Only the searches whose results are
+ * used are charged to the budget. A search that uses up its part is given
+ * up without being charged, so the enemy still has the rest of the budget
+ * to plan for itself with, and a long search it starts there is carried
+ * on over the next ticks. When the parts would be too small to be worth
+ * running the searches are not run at all. The pathfinder's cache is
+ * checked before searching and filled with what is found.
+ *
+ * Only enemies whose planner is plain A* are planned this way; the others
+ * search differently or keep state between moves and still plan for
+ * themselves.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.2
+ */
+public class ParallelPlanner {
+	// With fewer enemies than this it is not worth handing the work out.
+	public static final int MIN_PARALLEL_ENEMIES = 2;
+	// With less budget than this for each search it is not worth searching.
+	public static final int MIN_SEARCH_BUDGET = 256;
+
+	// The search arrays of each worker thread.
+	private static final ThreadLocal<SnapshotSearch> SCRATCH = ThreadLocal.withInitial(SnapshotSearch::new);
+
+	private Map mapLevel;
+	private ForkJoinPool pool;
+	// Where paths read from the cache are copied to.
+	private int[] cachedPath;
+
+	/**
+	 * Creates the planner for a map, using the common ForkJoin pool.
+	 *
+	 * @param mapLevel
+	 *            the map the enemies are on.
+	 */
+	public ParallelPlanner(Map mapLevel) {
+		this.mapLevel = mapLevel;
+		this.pool = ForkJoinPool.commonPool();
+		this.cachedPath = new int[mapLevel.getMapWidth() * mapLevel.getMapHeight()];
+	}
+
+	/**
+	 * Plans the next move of every smart enemy that can be planned on a
+	 * snapshot and gives each its path. Enemies that cannot reach their
+	 * target, or whose search runs out of budget, are left to plan for
+	 * themselves.
+	 *
+	 * @param enemies
+	 *            the enemies of the level, in the order they move.
+	 */
+	public void planMoves(Enemy[] enemies) {
+		int width = this.mapLevel.getMapWidth();
+		int version = this.mapLevel.getVersion();
+		GridPathfinder pathfinder = this.mapLevel.getPathfinder();
+		PathCache cache = pathfinder.getCache();
+		SmartTargetingEnemy[] planned = new SmartTargetingEnemy[enemies.length];
+		int[] starts = new int[enemies.length];
+		int[] goals = new int[enemies.length];
+		ArrayList<SearchTask> tasks = new ArrayList<SearchTask>();
+
+		for (int i = 0; i < enemies.length; i++) {
+			if (!(enemies[i] instanceof SmartTargetingEnemy)) {
+				continue;
+			}
+			SmartTargetingEnemy enemy = (SmartTargetingEnemy) enemies[i];
+			if (!enemy.isSnapshotPlanned()) {
+				continue;
+			}
+			int start = this.indexOf(enemy.getLocation(), width);
+			int goal = this.indexOf(enemy.getTarget().getLocation(), width);
+			int safeLevel = enemy.getSafeLevel();
+			if (start == goal || !this.mapLevel.getComponents(safeLevel).isConnected(start, goal)) {
+				continue;
+			}
+			int cached = cache.lookup(start, goal, safeLevel, version, this.cachedPath);
+			if (cached > 0) {
+				enemy.setPlannedPath(this.toCells(this.cachedPath, cached, width));
+				continue;
+			}
+			NavSnapshot snapshot = this.mapLevel.getNavGraph(safeLevel).getSnapshot();
+			LandmarkTables landmarks = this.mapLevel.getLandmarks(safeLevel).getTables();
+			planned[tasks.size()] = enemy;
+			starts[tasks.size()] = start;
+			goals[tasks.size()] = goal;
+			tasks.add(new SearchTask(snapshot, landmarks, start, goal));
+		}
+		if (tasks.size() < MIN_PARALLEL_ENEMIES) {
+			return;
+		}
+
+		// Each search gets an equal part of what is left of the budget.
+		int limit = Integer.MAX_VALUE;
+		int remaining = pathfinder.getRemainingBudget();
+		if (remaining != GridPathfinder.UNLIMITED) {
+			limit = remaining / tasks.size();
+			if (limit < MIN_SEARCH_BUDGET) {
+				return;
+			}
+		}
+		for (int i = 0; i < tasks.size(); i++) {
+			tasks.get(i).limit = limit;
+		}
+
+		// A search that fails is left PAUSED, so its enemy plans its own
+		// move instead. Only the searches that are used take up budget.
+		this.pool.invokeAll(tasks);
+		for (int i = 0; i < tasks.size(); i++) {
+			SearchTask task = tasks.get(i);
+			SmartTargetingEnemy enemy = planned[i];
+			enemy.addExpandedCount(task.expandedCount);
+			if (task.status == GridPathfinder.FOUND) {
+				pathfinder.spendBudget(task.expandedCount);
+				cache.store(starts[i], goals[i], enemy.getSafeLevel(), version, task.path, task.path.length);
+				enemy.setPlannedPath(this.toCells(task.path, task.path.length, width));
+			} else if (task.status == GridPathfinder.NO_PATH) {
+				pathfinder.spendBudget(task.expandedCount);
+				cache.store(starts[i], goals[i], enemy.getSafeLevel(), version, task.path, 0);
+			}
+		}
+	}
+
+	/**
+	 * Turns a path of cell indexes into the cells, starting at the target
+	 * and ending at the enemy as the planners give them.
+	 *
+	 * @param path
+	 *            the path from the enemy to the target.
+	 * @param length
+	 *            the number of cells in the path.
+	 * @param width
+	 *            the width of the map.
+	 * @return the cells.
+	 */
+	private ArrayList<BasicCell> toCells(int[] path, int length, int width) {
+		ArrayList<BasicCell> cells = new ArrayList<BasicCell>(length);
+		for (int i = length - 1; i >= 0; i--) {
+			cells.add(this.mapLevel.getCell(path[i] % width, path[i] / width));
+		}
+		return cells;
+	}
+
+	/**
+	 * Gets the index of a cell.
+	 *
+	 * @param cell
+	 *            the cell.
+	 * @param width
+	 *            the width of the map.
+	 * @return the index, y * width + x.
+	 */
+	private int indexOf(BasicCell cell, int width) {
+		return cell.getY() * width + cell.getX();
+	}
+
+	/**
+	 * One search to run on a worker thread, holding what it found so the
+	 * results can be read once every search has finished.
+	 */
+	private static class SearchTask implements Callable<Void> {
+		private NavSnapshot snapshot;
+		private LandmarkTables landmarks;
+		private int start;
+		private int goal;
+		private int limit;
+
+		private int status;
+		private int[] path;
+		private int expandedCount;
+
+		/**
+		 * Creates the task.
+		 *
+		 * @param snapshot
+		 *            the snapshot to search.
+		 * @param landmarks
+		 *            the landmark tables for the map as it is, or null.
+		 * @param start
+		 *            the index of the enemy's cell.
+		 * @param goal
+		 *            the index of the target's cell.
+		 */
+		SearchTask(NavSnapshot snapshot, LandmarkTables landmarks, int start, int goal) {
+			this.snapshot = snapshot;
+			this.landmarks = landmarks;
+			this.start = start;
+			this.goal = goal;
+			this.limit = Integer.MAX_VALUE;
+			this.status = GridPathfinder.PAUSED;
+		}
+
+		/**
+		 * Runs the search with this thread's SnapshotSearch.
+		 *
+		 * @return nothing.
+		 */
+		public Void call() {
+			SnapshotSearch search = SCRATCH.get();
+			this.status = search.findPath(this.snapshot, this.landmarks, this.start, this.goal, this.limit);
+			this.path = search.getPath();
+			this.expandedCount = search.getExpandedCount();
+			return null;
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package application;
+
+/**
+ * A small least recently used cache of search results for the
+ * GridPathfinder. A result is stored under its start cell, goal cell, safe
+ * level and the version of the map it was found on. Because every part of
+ * a shortest path is itself a shortest path, a search starting from a cell
+ * on a stored path towards the same goal is answered from that path too.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.0
+ */
+public class PathCache {
+	public static final int DEFAULT_CAPACITY = 16;
+	public static final int MISS = -1;
+
+	private int capacity;
+	private int size;
+	private int[] starts;
+	private int[] goals;
+	private int[] safeLevels;
+	private int[] versions;
+	// The stored paths from start to goal, length 0 if there was no path.
+	private int[][] paths;
+	private int[] lengths;
+	private long[] lastUsed;
+	private long clock;
+
+	private long hits;
+	private long misses;
+
+	/**
+	 * Creates a cache with the default capacity.
+	 */
+	public PathCache() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates a cache.
+	 *
+	 * @param capacity
+	 *            how many results are kept.
+	 */
+	public PathCache(int capacity) {
+		this.capacity = capacity;
+		this.size = 0;
+		this.starts = new int[capacity];
+		this.goals = new int[capacity];
+		this.safeLevels = new int[capacity];
+		this.versions = new int[capacity];
+		this.paths = new int[capacity][];
+		this.lengths = new int[capacity];
+		this.lastUsed = new long[capacity];
+		this.clock = 0;
+	}
+
+	/**
+	 * Looks up a search and copies the path into an array if it is known.
+	 *
+	 * @param start
+	 *            the index of the start cell.
+	 * @param goal
+	 *            the index of the goal cell.
+	 * @param safeLevel
+	 *            the safe level of the character.
+	 * @param version
+	 *            the version of the map.
+	 * @param dest
+	 *            the array the path is copied into, from start to goal.
+	 * @return the length of the path, 0 if there is known to be no path or
+	 *         MISS if the search is not in the cache.
+	 */
+	public int lookup(int start, int goal, int safeLevel, int version, int[] dest) {
+		for (int slot = 0; slot < this.size; slot++) {
+			if (this.goals[slot] != goal || this.safeLevels[slot] != safeLevel
+					|| this.versions[slot] != version) {
+				continue;
+			}
+
+			int offset = this.findOffset(slot, start);
+			if (offset != MISS) {
+				int length = this.lengths[slot] - offset;
+				System.arraycopy(this.paths[slot], offset, dest, 0, length);
+				this.lastUsed[slot] = ++this.clock;
+				this.hits++;
+				return length;
+			}
+		}
+		this.misses++;
+		return MISS;
+	}
+
+	/**
+	 * Stores the result of a search, replacing the least recently used one
+	 * if the cache is full.
+	 *
+	 * @param start
+	 *            the index of the start cell.
+	 * @param goal
+	 *            the index of the goal cell.
+	 * @param safeLevel
+	 *            the safe level of the character.
+	 * @param version
+	 *            the version of the map.
+	 * @param path
+	 *            the path from start to goal.
+	 * @param length
+	 *            the length of the path, 0 if there was no path.
+	 */
+	public void store(int start, int goal, int safeLevel, int version, int[] path, int length) {
+		int slot = this.size;
+		if (this.size < this.capacity) {
+			this.size++;
+		} else {
+			slot = 0;
+			for (int i = 1; i < this.capacity; i++) {
+				if (this.lastUsed[i] < this.lastUsed[slot]) {
+					slot = i;
+				}
+			}
+		}
+
+		if (this.paths[slot] == null || this.paths[slot].length < length) {
+			this.paths[slot] = new int[Math.max(length, 1)];
+		}
+		System.arraycopy(path, 0, this.paths[slot], 0, length);
+		this.starts[slot] = start;
+		this.goals[slot] = goal;
+		this.safeLevels[slot] = safeLevel;
+		this.versions[slot] = version;
+		this.lengths[slot] = length;
+		this.lastUsed[slot] = ++this.clock;
+	}
+
+	/**
+	 * Forgets every stored result.
+	 */
+	public void clear() {
+		this.size = 0;
+	}
+
+	/**
+	 * Gets how many lookups were answered from the cache.
+	 *
+	 * @return the number of hits.
+	 */
+	public long getHits() {
+		return this.hits;
+	}
+
+	/**
+	 * Gets how many lookups had to be searched.
+	 *
+	 * @return the number of misses.
+	 */
+	public long getMisses() {
+		return this.misses;
+	}
+
+	/**
+	 * Finds where a start cell is on a stored path.
+	 *
+	 * @param slot
+	 *            the slot of the stored path.
+	 * @param start
+	 *            the index of the start cell.
+	 * @return the position of the cell on the path, or MISS.
+	 */
+	private int findOffset(int slot, int start) {
+		if (this.starts[slot] == start) {
+			return 0;
+		}
+		int[] path = this.paths[slot];
+		for (int i = 1; i < this.lengths[slot]; i++) {
+			if (path[i] == start) {
+				return i;
+			}
+		}
+		return MISS;
+	}
+}
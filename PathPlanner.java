@@ -0,0 +1,35 @@
+package application;
+
+import java.util.ArrayList;
+
+/**
+ * The way a SmartTargetingEnemy works out how to reach its target.
+ * 
+ * @author Scarpati, Conroy.
+ * @version 1.0
+ */
+public interface PathPlanner {
+
+	/**
+	 * Determines the next cell the enemy should move to.
+	 * 
+	 * @return the next cell to move towards.
+	 */
+	BasicCell getMove();
+
+	/**
+	 * Finds the path between the enemy and its target.
+	 * 
+	 * @return an ArrayList containing all the steps required to reach the
+	 *         target, starting at the target and ending at the enemy.
+	 */
+	ArrayList<BasicCell> findPath();
+
+	/**
+	 * Gets how many cells the planner has expanded since it was created, so
+	 * different planners can be compared.
+	 * 
+	 * @return the number of expanded cells.
+	 */
+	long getExpandedCount();
+}
@@ -0,0 +1,150 @@
+package application;
+
+/**
+ * The answer to one request made to the PathfindingService. It never
+ * changes once made, so it can be handed from a worker thread to the game.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.1
+ */
+public final class PathResult {
+	private final int enemyId;
+	private final long requestNumber;
+	private final int start;
+	private final int goal;
+	private final int version;
+	private final int[] path;
+	// The cells the searches behind this result expanded.
+	private final int expandedCount;
+
+	/**
+	 * Creates a result.
+	 *
+	 * @param enemyId
+	 *            the id of the enemy that asked.
+	 * @param requestNumber
+	 *            the number of the request, higher for newer requests.
+	 * @param start
+	 *            the index of the cell the path starts at.
+	 * @param goal
+	 *            the index of the cell the path goes to.
+	 * @param version
+	 *            the version of the map the path was found on.
+	 * @param path
+	 *            the cells of the path from start to goal, or null if there
+	 *            is none.
+	 * @param expandedCount
+	 *            the number of cells the search expanded.
+	 */
+	PathResult(int enemyId, long requestNumber, int start, int goal, int version, int[] path,
+			int expandedCount) {
+		this.enemyId = enemyId;
+		this.requestNumber = requestNumber;
+		this.start = start;
+		this.goal = goal;
+		this.version = version;
+		this.path = path;
+		this.expandedCount = expandedCount;
+	}
+
+	/**
+	 * Picks the newer of two results for the same enemy. The cells the
+	 * older one's search expanded are added to it, so the work is still
+	 * counted when the older result is dropped.
+	 *
+	 * @param a
+	 *            the first result.
+	 * @param b
+	 *            the second result.
+	 * @return the one from the later request.
+	 */
+	public static PathResult newer(PathResult a, PathResult b) {
+		PathResult newest = a.requestNumber >= b.requestNumber ? a : b;
+		PathResult older = newest == a ? b : a;
+		return new PathResult(newest.enemyId, newest.requestNumber, newest.start, newest.goal, newest.version,
+				newest.path, newest.expandedCount + older.expandedCount);
+	}
+
+	/**
+	 * Gets the id of the enemy that asked.
+	 *
+	 * @return the enemy id.
+	 */
+	public int getEnemyId() {
+		return this.enemyId;
+	}
+
+	/**
+	 * Gets the number of the request.
+	 *
+	 * @return the request number.
+	 */
+	public long getRequestNumber() {
+		return this.requestNumber;
+	}
+
+	/**
+	 * Gets the cell the path starts at.
+	 *
+	 * @return the index of the start.
+	 */
+	public int getStart() {
+		return this.start;
+	}
+
+	/**
+	 * Gets the cell the path goes to.
+	 *
+	 * @return the index of the goal.
+	 */
+	public int getGoal() {
+		return this.goal;
+	}
+
+	/**
+	 * Gets the version of the map the path was found on.
+	 *
+	 * @return the map version.
+	 */
+	public int getVersion() {
+		return this.version;
+	}
+
+	/**
+	 * Gets how many cells were expanded to find this result.
+	 *
+	 * @return the number of expanded cells.
+	 */
+	public int getExpandedCount() {
+		return this.expandedCount;
+	}
+
+	/**
+	 * Checks if a path was found.
+	 *
+	 * @return true if there is a path.
+	 */
+	public boolean isFound() {
+		return this.path != null;
+	}
+
+	/**
+	 * Gets the number of cells on the path, including the start and goal.
+	 *
+	 * @return the length, 0 if there is no path.
+	 */
+	public int getPathLength() {
+		return this.path == null ? 0 : this.path.length;
+	}
+
+	/**
+	 * Gets a cell on the path.
+	 *
+	 * @param i
+	 *            the step of the path, 0 being the start.
+	 * @return the index of the cell.
+	 */
+	public int getPathNode(int i) {
+		return this.path[i];
+	}
+}
@@ -0,0 +1,110 @@
+package application;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Finds paths for enemies on a pool of background threads, so the game
+ * never waits for a search. An enemy asks for a path with its id, start
+ * and goal and picks up the answer on a later move. Each request takes a
+ * NavSnapshot of the map and the version of the map on the game thread, so
+ * the workers only read data that never changes, and answers found on a
+ * map that has changed since are thrown away when they are picked up.
+ * Only the newest answer for each enemy is kept, and each answer carries
+ * the number of cells its search expanded.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.1
+ */
+public class PathfindingService {
+	// The threads every map's requests are run on.
+	private static final ExecutorService WORKERS = Executors.newFixedThreadPool(
+			Math.max(1, Runtime.getRuntime().availableProcessors() - 1), runnable -> {
+				Thread thread = new Thread(runnable, "Pathfinding worker");
+				thread.setDaemon(true);
+				return thread;
+			});
+
+	// The search arrays of each worker thread.
+	private static final ThreadLocal<SnapshotSearch> SCRATCH = ThreadLocal.withInitial(SnapshotSearch::new);
+
+	private Map mapLevel;
+	// The newest finished answer for each enemy id.
+	private ConcurrentHashMap<Integer, PathResult> results;
+	private int nextEnemyId;
+	private long nextRequestNumber;
+
+	/**
+	 * Creates the service for a map.
+	 *
+	 * @param mapLevel
+	 *            the map paths are found on.
+	 */
+	public PathfindingService(Map mapLevel) {
+		this.mapLevel = mapLevel;
+		this.results = new ConcurrentHashMap<Integer, PathResult>();
+		this.nextEnemyId = 0;
+		this.nextRequestNumber = 0;
+	}
+
+	/**
+	 * Gives an enemy an id to make its requests with.
+	 *
+	 * @return the id.
+	 */
+	public int register() {
+		return this.nextEnemyId++;
+	}
+
+	/**
+	 * Asks for a path to be found in the background. This must be called on
+	 * the game thread, and returns straight away.
+	 *
+	 * @param enemyId
+	 *            the id of the enemy asking.
+	 * @param start
+	 *            the index of the starting cell.
+	 * @param goal
+	 *            the index of the cell to reach.
+	 * @param safeLevel
+	 *            the safe level of the enemy.
+	 */
+	public void request(int enemyId, int start, int goal, int safeLevel) {
+		int version = this.mapLevel.getVersion();
+		NavSnapshot snapshot = this.mapLevel.getNavGraph(safeLevel).getSnapshot();
+		LandmarkTables landmarks = this.mapLevel.getLandmarks(safeLevel).getTables();
+		long requestNumber = this.nextRequestNumber++;
+
+		WORKERS.execute(() -> {
+			SnapshotSearch search = SCRATCH.get();
+			int[] path = search.findPath(snapshot, landmarks, start, goal);
+			PathResult result = new PathResult(enemyId, requestNumber, start, goal, version, path,
+					search.getExpandedCount());
+			this.results.merge(enemyId, result, PathResult::newer);
+		});
+	}
+
+	/**
+	 * Takes the newest finished answer for an enemy, if there is one.
+	 *
+	 * @param enemyId
+	 *            the id of the enemy.
+	 * @return the answer, or null if none has finished since the last one
+	 *         was taken.
+	 */
+	public PathResult poll(int enemyId) {
+		return this.results.remove(enemyId);
+	}
+
+	/**
+	 * Checks if an answer was found on the map as it is now.
+	 *
+	 * @param result
+	 *            the answer.
+	 * @return true if the map has not changed since.
+	 */
+	public boolean isCurrent(PathResult result) {
+		return result.getVersion() == this.mapLevel.getVersion();
+	}
+}
@@ -10,7 +10,7 @@ import javafx.scene.image.Image;
  * level.
  *
  * @author William Conroy
- * @version 1.3
+ * @version 1.4
  */
 public class Player extends Character {
 	private static final Image FRONT_IMAGE = new Image("PlayerFront.png");
@@ -29,11 +29,11 @@ public class Player extends Character {
 		super(location, gc, map, 0);
 		this.hasShoes = hasShoes;
 		if(this.hasShoes ) {
-				DeadlyCell.makeSafeWind();
+				map.makeSafeWind();
 		}
 		this.hasFlippers = hasFlippers;
 		if(this.hasFlippers ) {
-				DeadlyCell.makeSafeWater();
+				map.makeSafeWater();
 		}
 		this.tokenCount = token;
 		this.keys = keys;
@@ -103,7 +103,7 @@ public class Player extends Character {
 	 */
 	protected boolean canMove(BasicCell cell) {
 
-		if (cell.getSafeLevel() < BasicCell.WALL_SAFELEVEL) {
+		if (map.isPassable(cell.getX(), cell.getY(), BasicCell.WALL_SAFELEVEL - 1)) {
 			return true;
 		} else {
 			Sound.playDoorErrorSound(Game.getLevelStage());
@@ -121,10 +121,10 @@ public class Player extends Character {
 		this.map.setToBasic(cell.getX(), cell.getY());
 		if (item == ItemCell.FLIPPERS) {
 			this.hasFlippers = true;
-			DeadlyCell.makeSafeWater();
+			this.map.makeSafeWater();
 		} else if (item == ItemCell.IRON_BOOTS) {
 			this.hasShoes = true;
-			DeadlyCell.makeSafeWind();
+			this.map.makeSafeWind();
 		} else if (item == ItemCell.TOKEN) {
 			this.tokenCount++;
 		}
@@ -0,0 +1,155 @@
+package application;
+
+/**
+ * Records which enemy will be on which cell at which tick, so enemies
+ * planning with cooperative A* can keep out of each other's way. It is
+ * shared by every enemy on a map and kept in a LongIntHashMap keyed on the
+ * cell and the tick.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.0
+ */
+public class ReservationTable {
+	public static final int FREE = LongIntHashMap.NO_VALUE;
+
+	private LongIntHashMap reservations;
+	// The tick the game is on, counting enemy updates.
+	private int tick;
+	private int nextOwner;
+
+	/**
+	 * Creates an empty table.
+	 */
+	public ReservationTable() {
+		this.reservations = new LongIntHashMap(256);
+		this.tick = 0;
+		this.nextOwner = 0;
+	}
+
+	/**
+	 * Gives an enemy an id to reserve cells with.
+	 *
+	 * @return the id.
+	 */
+	public int register() {
+		return this.nextOwner++;
+	}
+
+	/**
+	 * Gets the tick the game is on.
+	 *
+	 * @return the tick.
+	 */
+	public int getTick() {
+		return this.tick;
+	}
+
+	/**
+	 * Moves on to the next tick. Called once before the enemies move.
+	 */
+	public void nextTick() {
+		this.tick++;
+	}
+
+	/**
+	 * Reserves a cell at a tick.
+	 *
+	 * @param cell
+	 *            the index of the cell.
+	 * @param tick
+	 *            the tick.
+	 * @param owner
+	 *            the id of the enemy.
+	 */
+	public void reserve(int cell, int tick, int owner) {
+		this.reservations.put(this.key(cell, tick), owner);
+	}
+
+	/**
+	 * Gives up a reservation, if it is held by the given enemy.
+	 *
+	 * @param cell
+	 *            the index of the cell.
+	 * @param tick
+	 *            the tick.
+	 * @param owner
+	 *            the id of the enemy.
+	 */
+	public void release(int cell, int tick, int owner) {
+		long key = this.key(cell, tick);
+		if (this.reservations.get(key) == owner) {
+			this.reservations.remove(key);
+		}
+	}
+
+	/**
+	 * Gets who has reserved a cell at a tick.
+	 *
+	 * @param cell
+	 *            the index of the cell.
+	 * @param tick
+	 *            the tick.
+	 * @return the id of the enemy, or FREE.
+	 */
+	public int getOwner(int cell, int tick) {
+		return this.reservations.get(this.key(cell, tick));
+	}
+
+	/**
+	 * Checks if another enemy has reserved a cell at a tick.
+	 *
+	 * @param cell
+	 *            the index of the cell.
+	 * @param tick
+	 *            the tick.
+	 * @param owner
+	 *            the id of the enemy asking.
+	 * @return true if someone else will be there.
+	 */
+	public boolean isBlocked(int cell, int tick, int owner) {
+		int holder = this.getOwner(cell, tick);
+		return holder != FREE && holder != owner;
+	}
+
+	/**
+	 * Checks if a move would pass another enemy coming the other way, which
+	 * is when it is on the cell being moved to and will be on the cell
+	 * being left a tick later.
+	 *
+	 * @param from
+	 *            the index of the cell being left.
+	 * @param to
+	 *            the index of the cell being moved to.
+	 * @param tick
+	 *            the tick the move starts at.
+	 * @param owner
+	 *            the id of the enemy asking.
+	 * @return true if the two would swap places.
+	 */
+	public boolean isSwap(int from, int to, int tick, int owner) {
+		int holder = this.getOwner(to, tick);
+		return holder != FREE && holder != owner && this.getOwner(from, tick + 1) == holder;
+	}
+
+	/**
+	 * Gets how many reservations are held.
+	 *
+	 * @return the number of reservations.
+	 */
+	public int size() {
+		return this.reservations.size();
+	}
+
+	/**
+	 * Makes the key of a cell at a tick.
+	 *
+	 * @param cell
+	 *            the index of the cell.
+	 * @param tick
+	 *            the tick.
+	 * @return the key.
+	 */
+	private long key(int cell, int tick) {
+		return ((long) tick << 32) | (cell & 0xFFFFFFFFL);
+	}
+}
@@ -0,0 +1,63 @@
+package application;
+
+/**
+ * The moves a search can make between the cells of a map, answered either
+ * by the live NavGraph or by a NavSnapshot of it, so the same search can be
+ * run on both.
+ * 
+ * @author Scarpati, Conroy.
+ * @version 1.0
+ */
+public interface SearchGraph {
+
+	/**
+	 * Gets the directions that can be moved in from a cell.
+	 * 
+	 * @param node The index of the cell.
+	 * @return The mask of open directions.
+	 */
+	int getNeighbourMask(int node);
+
+	/**
+	 * Checks if a move from a cell in a direction is possible.
+	 * 
+	 * @param node The index of the cell.
+	 * @param dir The direction.
+	 * @return true if the neighbour in that direction can be moved onto.
+	 */
+	boolean canMove(int node, int dir);
+
+	/**
+	 * Gets the neighbour of a cell in a direction, past the linked 
+	 * teleporter if the cell in that direction is a teleporter.
+	 * 
+	 * @param node The index of the cell.
+	 * @param dir The direction.
+	 * @return The index of the neighbour.
+	 */
+	int getNeighbour(int node, int dir);
+
+	/**
+	 * Gets how many teleporters there are on the map.
+	 * 
+	 * @return The number of teleporters.
+	 */
+	int getTeleporterCount();
+
+	/**
+	 * Gets one of the teleporters on the map.
+	 * 
+	 * @param i The number of the teleporter.
+	 * @return The index of the teleporter.
+	 */
+	int getTeleporter(int i);
+
+	/**
+	 * Gets the teleporter a cell is linked to.
+	 * 
+	 * @param node The index of the cell.
+	 * @return The index of the linked teleporter, or NO_NODE if the cell 
+	 * is not a teleporter.
+	 */
+	int getLink(int node);
+}
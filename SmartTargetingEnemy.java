@@ -10,7 +10,7 @@ import java.util.ArrayList;
  * and move to it.
  * 
  * @author William Conroy
- * @version 1.3
+ * @version 1.10
  */
 public class SmartTargetingEnemy extends Enemy {
 	private static final String FRONT_LOCATION = "SmartTargetingEnemyFront.png";
@@ -18,9 +18,24 @@ public class SmartTargetingEnemy extends Enemy {
 	private static final String LEFT_LOCATION = "SmartTargetingEnemyLeftSide.png";
 	private static final String RIGHT_LOCATION = "SmartTargetingEnemyRightSide.png";
 	
-	private ArrayList<CellWeight> pathToPlayerList;
-	private AStar aStar;
+	// The ways the enemy can find its way to the player.
+	public static final String ASTAR_PLANNER = "ASTAR";
+	public static final String CHASE_PLANNER = "CHASE";
+	public static final String DSTAR_PLANNER = "DSTAR";
+	public static final String HPA_PLANNER = "HPA";
+	public static final String JPS_PLANNER = "JPS";
+	public static final String WEIGHTED_PLANNER = "WEIGHTED";
+	public static final String ASYNC_PLANNER = "ASYNC";
+	public static final String COOP_PLANNER = "COOP";
+	
+	private ArrayList<BasicCell> pathToPlayerList;
+	private PathPlanner planner;
+	private String plannerType;
 	private Character target;
+	// A path worked out ahead of the move by a ParallelPlanner, or null.
+	private ArrayList<BasicCell> plannedPath;
+	// The cells expanded by the ParallelPlanner's searches for this enemy.
+	private long plannedExpandedCount;
 
 	/**
 	 * Creates a smart targeting enemy.
@@ -30,13 +45,27 @@ public class SmartTargetingEnemy extends Enemy {
 	 * @param target The player.
 	 */
 	public SmartTargetingEnemy(BasicCell location, GraphicsContext gc, Map mapLevel, Character target) {
+		this(location, gc, mapLevel, target, ASTAR_PLANNER);
+	}
+
+	/**
+	 * Creates a smart targeting enemy that uses a chosen way of finding 
+	 * the player.
+	 * @param location The location of the enemy.
+	 * @param gc The graphics context.
+	 * @param mapLevel The map.
+	 * @param target The player.
+	 * @param plannerType The name of the planner, ASTAR_PLANNER if unknown.
+	 */
+	public SmartTargetingEnemy(BasicCell location, GraphicsContext gc, Map mapLevel, Character target,
+			String plannerType) {
 		super(location, gc, mapLevel, 0);
 
 		// setting other attributes
 		// this.target = target;
 		this.setTarget(target);
-		this.aStar = new AStar(this, this.target, mapLevel);
-		this.setPathToPlayerList(aStar.findPath());
+		this.setPlanner(plannerType);
+		this.setPathToPlayerList(planner.findPath());
 		setImages(FRONT_LOCATION, BACK_LOCATION, LEFT_LOCATION, RIGHT_LOCATION);
 	}
 
@@ -44,10 +73,29 @@ public class SmartTargetingEnemy extends Enemy {
 	 * Moves the enemy.
 	 */
 	public void move() {
-		BasicCell move = this.aStar.getMove();
+		if (this.plannedPath != null) {
+			ArrayList<BasicCell> path = this.plannedPath;
+			this.plannedPath = null;
+			this.followPlannedPath(path);
+			return;
+		}
+		BasicCell move = this.planner.getMove();
 		this.directionFacing = this.findDir(move);
 		this.setLocation(move);
-		this.showPath(this.aStar.findPath());
+		this.showPath(this.planner.findPath());
+	}
+
+	/**
+	 * Takes the first step of a path planned ahead of time and shows the
+	 * rest of it.
+	 * @param path The path, starting at the target and ending at the enemy.
+	 */
+	private void followPlannedPath(ArrayList<BasicCell> path) {
+		BasicCell move = path.get(path.size() - 2);
+		this.directionFacing = this.findDir(move);
+		this.setLocation(move);
+		path.remove(path.size() - 1);
+		this.showPath(path);
 	}
 
 	/**
@@ -81,12 +129,30 @@ public class SmartTargetingEnemy extends Enemy {
 	// setters and getters
 	/**
 	 * Gets the path to player.
-	 * @return the arraylist of cell weight
+	 * @return the arraylist of cells
 	 */
-	public ArrayList<CellWeight> getPathToPlayerList() {
+	public ArrayList<BasicCell> getPathToPlayerList() {
 		return pathToPlayerList;
 	}
 
+	/**
+	 * Gets how many cells the enemy's planner has expanded, to compare
+	 * planners on the same level.
+	 * @return the number of expanded cells
+	 */
+	public long getExpandedCount() {
+		return planner.getExpandedCount() + plannedExpandedCount;
+	}
+
+	/**
+	 * Adds cells expanded for this enemy by searches run outside its
+	 * planner, such as by a ParallelPlanner.
+	 * @param count The number of cells.
+	 */
+	public void addExpandedCount(long count) {
+		this.plannedExpandedCount += count;
+	}
+
 	/**
 	 * Gets the character the enemy is targeting.
 	 * @return the target
@@ -95,11 +161,72 @@ public class SmartTargetingEnemy extends Enemy {
 		return target;
 	}
 
+	/**
+	 * Gets the name of the way the enemy finds the player.
+	 * @return the planner name
+	 */
+	public String getPlannerType() {
+		return plannerType;
+	}
+
+	/**
+	 * Sets the way the enemy finds the player.
+	 * @param plannerType The name of the planner, ASTAR_PLANNER if unknown.
+	 */
+	public void setPlanner(String plannerType) {
+		if (CHASE_PLANNER.equals(plannerType)) {
+			this.plannerType = CHASE_PLANNER;
+			this.planner = new ChasePlanner(this, map.getChaseField(target));
+		} else if (DSTAR_PLANNER.equals(plannerType)) {
+			this.plannerType = DSTAR_PLANNER;
+			this.planner = new DStarLite(this, this.target, map);
+		} else if (HPA_PLANNER.equals(plannerType)) {
+			this.plannerType = HPA_PLANNER;
+			this.planner = new HierarchicalPlanner(this, this.target, map);
+		} else if (JPS_PLANNER.equals(plannerType)) {
+			this.plannerType = JPS_PLANNER;
+			this.planner = new AStar(this, this.target, map, true);
+		} else if (WEIGHTED_PLANNER.equals(plannerType)) {
+			this.plannerType = WEIGHTED_PLANNER;
+			this.planner = new WeightedPlanner(this, this.target, map);
+		} else if (ASYNC_PLANNER.equals(plannerType)) {
+			this.plannerType = ASYNC_PLANNER;
+			this.planner = new AsyncPlanner(this, this.target, map);
+		} else if (COOP_PLANNER.equals(plannerType)) {
+			this.plannerType = COOP_PLANNER;
+			this.planner = new CooperativePlanner(this, this.target, map);
+		} else {
+			this.plannerType = ASTAR_PLANNER;
+			this.planner = new AStar(this, this.target, map);
+		}
+	}
+
+	/**
+	 * Checks if the enemy's moves can be planned on a snapshot of the map
+	 * by a ParallelPlanner, which is the case for plain A*. Jump point
+	 * search plans for itself, so it keeps searching the way it was asked
+	 * to.
+	 * @return true if they can.
+	 */
+	public boolean isSnapshotPlanned() {
+		return ASTAR_PLANNER.equals(plannerType);
+	}
+
+	/**
+	 * Gives the enemy a path worked out ahead of its next move, which it
+	 * follows instead of asking its planner.
+	 * @param plannedPath The path, starting at the target and ending at the
+	 *            enemy.
+	 */
+	public void setPlannedPath(ArrayList<BasicCell> plannedPath) {
+		this.plannedPath = plannedPath;
+	}
+
 	/**
 	 * Sets the path to the player.
 	 * @param pathToPlayerList The path.
 	 */
-	public void setPathToPlayerList(ArrayList<CellWeight> pathToPlayerList) {
+	public void setPathToPlayerList(ArrayList<BasicCell> pathToPlayerList) {
 		this.pathToPlayerList = pathToPlayerList;
 	}
 
@@ -116,10 +243,10 @@ public class SmartTargetingEnemy extends Enemy {
 	 * Show the path of the smart enemy.
 	 * @param path The path of the enemy.
 	 */
-	private void showPath(ArrayList<CellWeight> path) {
+	private void showPath(ArrayList<BasicCell> path) {
 		for (int i = 0; i < path.size() - 1; i++) {
 			gc.setFill(Color.GREEN);
-			gc.fillOval(path.get(i).getCell().getX() * size, path.get(i).getCell().getY() * size, 40, 40);
+			gc.fillOval(path.get(i).getX() * size, path.get(i).getY() * size, 40, 40);
 		}
 	}
 
@@ -0,0 +1,103 @@
+package application;
+
+/**
+ * Runs searches over a NavSnapshot for one worker thread, so each worker
+ * can keep one and reuse it for every search it runs without sharing
+ * anything with the other workers. The search itself is GridPathfinder's,
+ * run on an engine of this search's own that is made for the first map
+ * searched and made again when a map of another size is searched.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.2
+ */
+public class SnapshotSearch {
+	private GridPathfinder engine;
+	// The size of the maps the engine was made for.
+	private int width;
+	private int size;
+	// The path found by the last search, from start to goal, or null.
+	private int[] path;
+
+	/**
+	 * Creates the search. Its engine is made for the first map it
+	 * searches.
+	 */
+	public SnapshotSearch() {
+		this.width = -1;
+		this.size = -1;
+	}
+
+	/**
+	 * Finds the shortest path between two cells of a snapshot.
+	 *
+	 * @param snapshot
+	 *            the snapshot to search.
+	 * @param landmarks
+	 *            the landmark tables for the map as it is, or null.
+	 * @param start
+	 *            the index of the starting cell.
+	 * @param goal
+	 *            the index of the cell to reach.
+	 * @return the cells of the path from start to goal, or null if there is
+	 *         no path.
+	 */
+	public int[] findPath(NavSnapshot snapshot, LandmarkTables landmarks, int start, int goal) {
+		this.findPath(snapshot, landmarks, start, goal, Integer.MAX_VALUE);
+		return this.path;
+	}
+
+	/**
+	 * Finds the shortest path between two cells of a snapshot without
+	 * expanding more than a given number of cells. A search that reaches
+	 * the limit is given up, as the snapshot it ran on will be out of date
+	 * by the time it could carry on.
+	 *
+	 * @param snapshot
+	 *            the snapshot to search.
+	 * @param landmarks
+	 *            the landmark tables for the map as it is, or null.
+	 * @param start
+	 *            the index of the starting cell.
+	 * @param goal
+	 *            the index of the cell to reach.
+	 * @param limit
+	 *            the most cells the search may expand.
+	 * @return GridPathfinder.FOUND, NO_PATH, or PAUSED if the limit was
+	 *         reached first.
+	 */
+	public int findPath(NavSnapshot snapshot, LandmarkTables landmarks, int start, int goal, int limit) {
+		if (this.width != snapshot.getWidth() || this.size != snapshot.getSize()) {
+			this.width = snapshot.getWidth();
+			this.size = snapshot.getSize();
+			this.engine = new GridPathfinder(this.width, this.size / this.width);
+		}
+		int status = this.engine.findPath(snapshot, landmarks, start, goal, limit);
+		this.path = null;
+		if (status == GridPathfinder.FOUND) {
+			this.path = new int[this.engine.getPathLength()];
+			for (int i = 0; i < this.path.length; i++) {
+				this.path[i] = this.engine.getPathNode(i);
+			}
+		}
+		return status;
+	}
+
+	/**
+	 * Gets the path found by the last search.
+	 *
+	 * @return the cells of the path from start to goal, or null if the last
+	 *         search did not find one.
+	 */
+	public int[] getPath() {
+		return this.path;
+	}
+
+	/**
+	 * Gets how many cells the last search expanded.
+	 *
+	 * @return the number of expanded cells.
+	 */
+	public int getExpandedCount() {
+		return this.engine == null ? 0 : this.engine.getExpandedCount();
+	}
+}
@@ -7,12 +7,15 @@ import javafx.scene.image.Image;
  * Transports a player onto a paired teleporter when moved onto.
  * 
  * @author William Conroy
- * @version 1.2
+ * @version 1.3
  */
 public class Teleporter extends BasicCell {
 	private static final Image TELE_IMAGE = new Image("Teleporter.png");
 
 	private Teleporter link;
+	// Where the linked teleporter is, until it is first asked for.
+	private int xLink;
+	private int yLink;
 
 	/**
 	 * Constructs a teleporter - only the player can move onto.
@@ -36,7 +39,8 @@ public class Teleporter extends BasicCell {
 	 */
 	Teleporter(int x, int y, int xLink, int yLink) {
 		super(1, x, y);
-		this.link = new Teleporter(xLink, yLink, this);
+		this.xLink = xLink;
+		this.yLink = yLink;
 	}
 
 	/**
@@ -45,6 +49,9 @@ public class Teleporter extends BasicCell {
 	 * @return the cell to teleport to
 	 */
 	public BasicCell getLink() {
+		if (link == null) {
+			link = new Teleporter(xLink, yLink, this);
+		}
 		return link;
 	}
 
@@ -52,9 +59,11 @@ public class Teleporter extends BasicCell {
 	 * Draw the cell onto the gc.
 	 * 
 	 * @param gc The graphics context.
+	 * @param x The x position to draw it at.
+	 * @param y The y position to draw it at.
 	 */
-	public void draw(GraphicsContext gc) {
-		gc.drawImage(TELE_IMAGE, positionX * size, positionY * size);
+	public void drawAt(GraphicsContext gc, int x, int y) {
+		gc.drawImage(TELE_IMAGE, x * size, y * size);
 	}
 
 }
@@ -0,0 +1,171 @@
+package application;
+
+/**
+ * Works out a lower bound on the number of moves from any cell to a target
+ * cell on a map with teleporters. The Manhattan distance is no longer a
+ * lower bound there, as a teleporter can carry a character across the map
+ * in one move, so the bound is the smallest of the Manhattan distance and
+ * the best way through the teleporters. The bound never drops by more than
+ * one in a move, so searches using it still find the shortest path.
+ *
+ * For each teleporter the fewest moves from stepping onto it to the target
+ * is bounded first, using the Manhattan distances between the teleporters,
+ * and the bound for a cell is then the cheapest of walking straight there
+ * or walking to one of the teleporters.
+ *
+ * The teleporters can be read from a NavGraph or from a NavSnapshot, so
+ * searches on other threads can use the bounds too.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.2
+ */
+public class TeleporterBounds {
+	private int width;
+	private int target;
+	private int teleporterCount;
+	// The index of each teleporter and of the teleporter it is linked to.
+	private int[] teleporters;
+	private int[] links;
+
+	// The least moves from next to each teleporter to the target, counting
+	// the move onto the teleporter.
+	private int[] viaCost;
+	private boolean[] done;
+
+	/**
+	 * Creates the bounds for a map.
+	 *
+	 * @param width
+	 *            the width of the map.
+	 */
+	public TeleporterBounds(int width) {
+		this.width = width;
+		this.target = GridPathfinder.NO_NODE;
+		this.teleporters = new int[0];
+		this.links = new int[0];
+		this.viaCost = new int[0];
+		this.done = new boolean[0];
+	}
+
+	/**
+	 * Sets the cell the bounds are measured to. This takes time in the
+	 * square of the number of teleporters, so should be done once a search.
+	 *
+	 * @param graph
+	 *            the navigation graph or snapshot the teleporters are read
+	 *            from.
+	 * @param target
+	 *            the index of the target cell.
+	 */
+	public void setTarget(SearchGraph graph, int target) {
+		int count = graph.getTeleporterCount();
+		this.setCapacity(count);
+		for (int i = 0; i < count; i++) {
+			this.teleporters[i] = graph.getTeleporter(i);
+			this.links[i] = graph.getLink(this.teleporters[i]);
+		}
+		this.calculate(target, count);
+	}
+
+	/**
+	 * Gets the cell the bounds are measured to.
+	 *
+	 * @return the index of the target, or NO_NODE if none has been set.
+	 */
+	public int getTarget() {
+		return this.target;
+	}
+
+	/**
+	 * Gets the lower bound on the number of moves from a cell to the target.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 * @return the bound.
+	 */
+	public int getHCost(int node) {
+		int h = this.calculateDistance(node, this.target);
+		for (int i = 0; i < this.teleporterCount; i++) {
+			int via = Math.max(this.calculateDistance(node, this.teleporters[i]) - 1, 0) + this.viaCost[i];
+			if (via < h) {
+				h = via;
+			}
+		}
+		return h;
+	}
+
+	/**
+	 * Makes sure there is room for a number of teleporters.
+	 *
+	 * @param count
+	 *            the number of teleporters.
+	 */
+	private void setCapacity(int count) {
+		if (this.viaCost.length < count) {
+			this.teleporters = new int[count];
+			this.links = new int[count];
+			this.viaCost = new int[count];
+			this.done = new boolean[count];
+		}
+	}
+
+	/**
+	 * Works out the least moves from next to each teleporter to the target.
+	 *
+	 * @param target
+	 *            the index of the target cell.
+	 * @param count
+	 *            the number of teleporters.
+	 */
+	private void calculate(int target, int count) {
+		this.target = target;
+		this.teleporterCount = count;
+
+		// Leaving a teleporter puts a character next to its link, so it is at
+		// most one move closer to anything than the link is.
+		for (int i = 0; i < count; i++) {
+			int link = this.links[i];
+			this.viaCost[i] = link == target ? 2 : this.calculateDistance(link, target);
+			this.done[i] = false;
+		}
+
+		// Dijkstra's algorithm over the teleporters, taking each one that has
+		// the lowest cost left and seeing if going on through it is cheaper
+		// for any teleporter whose link is near it.
+		for (int round = 0; round < count; round++) {
+			int best = -1;
+			for (int i = 0; i < count; i++) {
+				if (!this.done[i] && (best == -1 || this.viaCost[i] < this.viaCost[best])) {
+					best = i;
+				}
+			}
+			this.done[best] = true;
+
+			int through = this.teleporters[best];
+			for (int i = 0; i < count; i++) {
+				if (this.done[i]) {
+					continue;
+				}
+				int link = this.links[i];
+				int step = link == through ? 1 : this.calculateDistance(link, through) - 1;
+				if (this.viaCost[best] + step < this.viaCost[i]) {
+					this.viaCost[i] = this.viaCost[best] + step;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Calculates the number of steps between two cells ignoring walls and
+	 * teleporters.
+	 *
+	 * @param a
+	 *            the index of the first cell.
+	 * @param b
+	 *            the index of the second cell.
+	 * @return the distance.
+	 */
+	private int calculateDistance(int a, int b) {
+		return Math.abs(a % this.width - b % this.width) + Math.abs(a / this.width - b / this.width);
+	}
+}
@@ -0,0 +1,132 @@
+package application;
+
+/**
+ * Holds the tiles of a map as one byte per tile in a single array, row by
+ * row, so sweeps over the whole map read memory in order. The payloads are
+ * kept in a side table as only a few tiles have one.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.2
+ */
+public class TileGrid extends TileStore {
+	private int width;
+	private int height;
+	// The type of every tile, y * width + x.
+	private byte[] codes;
+	// The payload of the tiles that have one, keyed on y * width + x.
+	private LongIntHashMap payloads;
+
+	/**
+	 * Creates a grid of floor tiles.
+	 *
+	 * @param width
+	 *            the width of the map.
+	 * @param height
+	 *            the height of the map.
+	 */
+	public TileGrid(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.codes = new byte[width * height];
+		this.payloads = new LongIntHashMap(16);
+	}
+
+	/**
+	 * Creates a grid holding the same tiles as an array of cells.
+	 *
+	 * @param cells
+	 *            the cells, cells[x][y].
+	 * @param width
+	 *            the width of the map.
+	 * @param height
+	 *            the height of the map.
+	 * @return the grid.
+	 */
+	public static TileGrid fromCells(BasicCell[][] cells, int width, int height) {
+		TileGrid grid = new TileGrid(width, height);
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				grid.setCell(x, y, cells[x][y]);
+			}
+		}
+		return grid;
+	}
+
+	/**
+	 * Gets the width of the grid.
+	 *
+	 * @return the width.
+	 */
+	public int getWidth() {
+		return this.width;
+	}
+
+	/**
+	 * Gets the height of the grid.
+	 *
+	 * @return the height.
+	 */
+	public int getHeight() {
+		return this.height;
+	}
+
+	/**
+	 * Gets the type of a tile.
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @return the type code.
+	 */
+	public byte getCode(int x, int y) {
+		return this.codes[y * this.width + x];
+	}
+
+	/**
+	 * Gets the payload of a tile.
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @return the payload, or LongIntHashMap.NO_VALUE if it has none.
+	 */
+	public int getPayload(int x, int y) {
+		return this.payloads.get(y * this.width + x);
+	}
+
+	/**
+	 * Stores a tile that has no payload, for setTile().
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @param code
+	 *            the type code.
+	 */
+	protected void putTile(int x, int y, byte code) {
+		int index = y * this.width + x;
+		this.codes[index] = code;
+		this.payloads.remove(index);
+	}
+
+	/**
+	 * Stores a tile with a payload, for setTile().
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @param code
+	 *            the type code.
+	 * @param payload
+	 *            the payload, not negative.
+	 */
+	protected void putTile(int x, int y, byte code, int payload) {
+		int index = y * this.width + x;
+		this.codes[index] = code;
+		this.payloads.put(index, payload);
+	}
+}
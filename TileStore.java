@@ -0,0 +1,385 @@
+package application;
+
+/**
+ * The tiles of a map, stored as one type code per tile. The few tiles that
+ * need more than their type, which are token doors, keys, coloured doors
+ * and teleporters, also have a number called a payload. A subclass decides
+ * how the codes are kept; this class turns them into cells. getCell()
+ * makes a cell for a tile the first time one is asked for and keeps it,
+ * so every call for the same tile gives the same object until the tile is
+ * set again. The cells kept are held in pages of VIEW_PAGE_SIZE by
+ * VIEW_PAGE_SIZE tiles, and a page is only made once a cell in it is
+ * asked for, so a big map only keeps cells for the parts characters and
+ * paths go over. Drawing does not make cells at all, as getLook() hands
+ * out one shared cell for each look a tile can have.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.2
+ */
+public abstract class TileStore {
+	public static final byte FLOOR = 0;
+	public static final byte WALL = 1;
+	public static final byte GOAL = 2;
+	public static final byte BOOTS = 3;
+	public static final byte FLIPPERS = 4;
+	public static final byte TOKEN = 5;
+	public static final byte WATER = 6;
+	public static final byte WIND = 7;
+	// The payload is the index of the colour in COLOURS.
+	public static final byte KEY = 8;
+	// The payload is the index of the colour in COLOURS.
+	public static final byte COLOURED_DOOR = 9;
+	// The payload is the number of tokens needed.
+	public static final byte TOKEN_DOOR = 10;
+	// The payload is the index of the linked teleporter, y * width + x.
+	public static final byte TELEPORTER = 11;
+
+	// Pages of kept cells are 1 << VIEW_PAGE_BITS tiles across.
+	public static final int VIEW_PAGE_BITS = 6;
+	public static final int VIEW_PAGE_SIZE = 1 << VIEW_PAGE_BITS;
+	private static final int VIEW_PAGE_MASK = VIEW_PAGE_SIZE - 1;
+
+	// The colours of keys and doors, in the order of their payloads.
+	private static final String[] COLOURS = { Key.RED, Key.GREEN, Key.BLUE };
+
+	// The safe level of each type, water and wind being looked up instead.
+	private static final int[] SAFE_LEVELS = { BasicCell.BASIC_CELL_SAFELEVEL, BasicCell.WALL_SAFELEVEL,
+			BasicCell.SAFE_CELL_SAFELEVEL, BasicCell.BASIC_CELL_SAFELEVEL, BasicCell.BASIC_CELL_SAFELEVEL,
+			BasicCell.BASIC_CELL_SAFELEVEL, 0, 0, BasicCell.BASIC_CELL_SAFELEVEL, BasicCell.WALL_SAFELEVEL,
+			BasicCell.WALL_SAFELEVEL, BasicCell.SAFE_CELL_SAFELEVEL };
+
+	// One shared cell for the look of each type without a payload, made
+	// when first drawn.
+	private static BasicCell[] looks;
+	// The looks of keys and coloured doors, by colour.
+	private static BasicCell[] keyLooks;
+	private static BasicCell[] doorLooks;
+	// The looks of token doors, by the number of tokens needed.
+	private static BasicCell[] tokenDoorLooks = new BasicCell[0];
+
+	// The cells kept for each page of tiles, row by row within the page,
+	// or null for a page no cell has been asked for in.
+	private BasicCell[][] views;
+	private int pagesAcross;
+
+	/**
+	 * Gets the width of the map.
+	 *
+	 * @return the width.
+	 */
+	public abstract int getWidth();
+
+	/**
+	 * Gets the height of the map.
+	 *
+	 * @return the height.
+	 */
+	public abstract int getHeight();
+
+	/**
+	 * Gets the type of a tile.
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @return the type code.
+	 */
+	public abstract byte getCode(int x, int y);
+
+	/**
+	 * Gets the payload of a tile.
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @return the payload, or LongIntHashMap.NO_VALUE if it has none.
+	 */
+	public abstract int getPayload(int x, int y);
+
+	/**
+	 * Stores a tile that has no payload.
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @param code
+	 *            the type code.
+	 */
+	protected abstract void putTile(int x, int y, byte code);
+
+	/**
+	 * Stores a tile with a payload.
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @param code
+	 *            the type code.
+	 * @param payload
+	 *            the payload, not negative.
+	 */
+	protected abstract void putTile(int x, int y, byte code, int payload);
+
+	/**
+	 * Sets a tile that has no payload. The cell kept for it, if any, is
+	 * let go.
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @param code
+	 *            the type code.
+	 */
+	public void setTile(int x, int y, byte code) {
+		this.forgetView(x, y);
+		this.putTile(x, y, code);
+	}
+
+	/**
+	 * Sets a tile with a payload. The cell kept for it, if any, is let go.
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @param code
+	 *            the type code.
+	 * @param payload
+	 *            the payload, not negative.
+	 */
+	public void setTile(int x, int y, byte code, int payload) {
+		this.forgetView(x, y);
+		this.putTile(x, y, code, payload);
+	}
+
+	/**
+	 * Gets the safe level of a tile without making a cell for it.
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @return the safe level.
+	 */
+	public int getSafeLevel(int x, int y) {
+		byte code = this.getCode(x, y);
+		if (code == WATER) {
+			return DeadlyCell.getGlobalSafeLevelWater();
+		} else if (code == WIND) {
+			return DeadlyCell.getGlobalSafeLevelWind();
+		}
+		return SAFE_LEVELS[code];
+	}
+
+	/**
+	 * Gets the cell for a tile, making it the first time it is asked for.
+	 * Cells are kept for the game thread and must not be asked for from
+	 * other threads.
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @return the cell of the tile, the same one each time until the tile
+	 *         is set again.
+	 */
+	public BasicCell getCell(int x, int y) {
+		if (x < 0 || y < 0 || x >= this.getWidth() || y >= this.getHeight()) {
+			throw new ArrayIndexOutOfBoundsException("No tile at " + x + "," + y);
+		}
+		if (this.views == null) {
+			this.pagesAcross = (this.getWidth() + VIEW_PAGE_MASK) >> VIEW_PAGE_BITS;
+			this.views = new BasicCell[this.pagesAcross * ((this.getHeight() + VIEW_PAGE_MASK) >> VIEW_PAGE_BITS)][];
+		}
+		int page = (y >> VIEW_PAGE_BITS) * this.pagesAcross + (x >> VIEW_PAGE_BITS);
+		if (this.views[page] == null) {
+			this.views[page] = new BasicCell[VIEW_PAGE_SIZE * VIEW_PAGE_SIZE];
+		}
+		int offset = ((y & VIEW_PAGE_MASK) << VIEW_PAGE_BITS) | (x & VIEW_PAGE_MASK);
+		BasicCell cell = this.views[page][offset];
+		if (cell == null) {
+			cell = this.makeCell(x, y);
+			this.views[page][offset] = cell;
+		}
+		return cell;
+	}
+
+	/**
+	 * Lets go of the cell kept for a tile, so a new one is made for it the
+	 * next time it is asked for.
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 */
+	private void forgetView(int x, int y) {
+		if (this.views == null) {
+			return;
+		}
+		BasicCell[] page = this.views[(y >> VIEW_PAGE_BITS) * this.pagesAcross + (x >> VIEW_PAGE_BITS)];
+		if (page != null) {
+			page[((y & VIEW_PAGE_MASK) << VIEW_PAGE_BITS) | (x & VIEW_PAGE_MASK)] = null;
+		}
+	}
+
+	/**
+	 * Makes a cell for a tile.
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @return a new cell of the type of the tile.
+	 */
+	private BasicCell makeCell(int x, int y) {
+		switch (this.getCode(x, y)) {
+			case FLOOR:
+				return new BasicCell(BasicCell.BASIC_CELL_SAFELEVEL, x, y);
+			case GOAL:
+				return new GoalCell(x, y);
+			case BOOTS:
+				return new ItemCell(ItemCell.IRON_BOOTS, x, y);
+			case FLIPPERS:
+				return new ItemCell(ItemCell.FLIPPERS, x, y);
+			case TOKEN:
+				return new ItemCell(ItemCell.TOKEN, x, y);
+			case WATER:
+				return DeadlyCell.view(x, y, true);
+			case WIND:
+				return DeadlyCell.view(x, y, false);
+			case KEY:
+				return new KeyCell(x, y, new Key(COLOURS[this.getPayload(x, y)]));
+			case COLOURED_DOOR:
+				return new ColouredDoor(x, y, COLOURS[this.getPayload(x, y)]);
+			case TOKEN_DOOR:
+				return new TokenDoor(x, y, this.getPayload(x, y));
+			case TELEPORTER:
+				int link = this.getPayload(x, y);
+				return new Teleporter(x, y, link % this.getWidth(), link / this.getWidth());
+			default:
+				return new BasicCell(BasicCell.WALL_SAFELEVEL, x, y);
+		}
+	}
+
+	/**
+	 * Gets the shared cell that a tile is drawn with. Its position is not
+	 * the tile's, so it must be drawn with drawAt() and must not be used
+	 * for anything but drawing.
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @return the cell with the look of the tile.
+	 */
+	public BasicCell getLook(int x, int y) {
+		if (looks == null) {
+			makeLooks();
+		}
+		byte code = this.getCode(x, y);
+		switch (code) {
+			case KEY:
+				return keyLooks[this.getPayload(x, y)];
+			case COLOURED_DOOR:
+				return doorLooks[this.getPayload(x, y)];
+			case TOKEN_DOOR:
+				int tokens = this.getPayload(x, y);
+				if (tokens >= tokenDoorLooks.length) {
+					BasicCell[] grown = new BasicCell[tokens + 1];
+					System.arraycopy(tokenDoorLooks, 0, grown, 0, tokenDoorLooks.length);
+					tokenDoorLooks = grown;
+				}
+				if (tokenDoorLooks[tokens] == null) {
+					tokenDoorLooks[tokens] = new TokenDoor(0, 0, tokens);
+				}
+				return tokenDoorLooks[tokens];
+			default:
+				return looks[code];
+		}
+	}
+
+	/**
+	 * Makes the shared cells for the looks of the tiles.
+	 */
+	private static void makeLooks() {
+		BasicCell[] made = new BasicCell[SAFE_LEVELS.length];
+		made[FLOOR] = new BasicCell(BasicCell.BASIC_CELL_SAFELEVEL, 0, 0);
+		made[WALL] = new BasicCell(BasicCell.WALL_SAFELEVEL, 0, 0);
+		made[GOAL] = new GoalCell(0, 0);
+		made[BOOTS] = new ItemCell(ItemCell.IRON_BOOTS, 0, 0);
+		made[FLIPPERS] = new ItemCell(ItemCell.FLIPPERS, 0, 0);
+		made[TOKEN] = new ItemCell(ItemCell.TOKEN, 0, 0);
+		made[WATER] = DeadlyCell.view(0, 0, true);
+		made[WIND] = DeadlyCell.view(0, 0, false);
+		made[TELEPORTER] = new Teleporter(0, 0, 0, 0);
+		keyLooks = new BasicCell[COLOURS.length];
+		doorLooks = new BasicCell[COLOURS.length];
+		for (int i = 0; i < COLOURS.length; i++) {
+			keyLooks[i] = new KeyCell(0, 0, new Key(COLOURS[i]));
+			doorLooks[i] = new ColouredDoor(0, 0, COLOURS[i]);
+		}
+		looks = made;
+	}
+
+	/**
+	 * Sets a tile to match a cell.
+	 *
+	 * @param x
+	 *            the x position.
+	 * @param y
+	 *            the y position.
+	 * @param cell
+	 *            the cell.
+	 */
+	public void setCell(int x, int y, BasicCell cell) {
+		if (cell instanceof GoalCell) {
+			this.setTile(x, y, GOAL);
+		} else if (cell instanceof ItemCell) {
+			String item = ((ItemCell) cell).pickUpItem();
+			if (item.equals(ItemCell.IRON_BOOTS)) {
+				this.setTile(x, y, BOOTS);
+			} else if (item.equals(ItemCell.FLIPPERS)) {
+				this.setTile(x, y, FLIPPERS);
+			} else {
+				this.setTile(x, y, TOKEN);
+			}
+		} else if (cell instanceof DeadlyCell) {
+			this.setTile(x, y, ((DeadlyCell) cell).isWater() ? WATER : WIND);
+		} else if (cell instanceof KeyCell) {
+			this.setTile(x, y, KEY, colourIndex(((KeyCell) cell).getKey().getColour()));
+		} else if (cell instanceof ColouredDoor) {
+			this.setTile(x, y, COLOURED_DOOR, colourIndex(((ColouredDoor) cell).getDoorColour()));
+		} else if (cell instanceof TokenDoor) {
+			this.setTile(x, y, TOKEN_DOOR, ((TokenDoor) cell).getNumTokensForDoor());
+		} else if (cell instanceof Teleporter) {
+			BasicCell link = ((Teleporter) cell).getLink();
+			this.setTile(x, y, TELEPORTER, link.getY() * this.getWidth() + link.getX());
+		} else if (cell.getSafeLevel() == BasicCell.BASIC_CELL_SAFELEVEL) {
+			this.setTile(x, y, FLOOR);
+		} else {
+			this.setTile(x, y, WALL);
+		}
+	}
+
+	/**
+	 * Gets the payload for the colour of a key or door.
+	 *
+	 * @param colour
+	 *            the colour, one of the colours in Key.
+	 * @return the index of the colour.
+	 */
+	public static int colourIndex(String colour) {
+		for (int i = 0; i < COLOURS.length; i++) {
+			if (COLOURS[i].equals(colour)) {
+				return i;
+			}
+		}
+		return 0;
+	}
+}
@@ -9,14 +9,14 @@ import javafx.scene.text.Font;
  * Creates a token door.
  * 
  * @author Jolene Foong
- * @version 1.0
+ * @version 1.2
  * @since 25/11/19
  *
  */
 public class TokenDoor extends BasicCell {
 
 	private int numTokensForDoor;
-	private Image door = new Image("TokenDoor.png");
+	private static final Image DOOR_IMAGE = new Image("TokenDoor.png");
 
 	/**
 	 * Constructs a token door.
@@ -43,12 +43,14 @@ public class TokenDoor extends BasicCell {
 	 * Draws a token door with image.
 	 * 
 	 * @param gc draws the door with image and position
+	 * @param x The x position to draw it at.
+	 * @param y The y position to draw it at.
 	 */
-	public void draw(GraphicsContext gc) {
-		gc.drawImage(door, positionX * size, positionY * size);
+	public void drawAt(GraphicsContext gc, int x, int y) {
+		gc.drawImage(DOOR_IMAGE, x * size, y * size);
 		gc.setFill(Color.BLACK);
 		gc.setFont(Font.font(40));
-		gc.fillText("" + numTokensForDoor + "", (positionX + 0.45) 
-				* size, (positionY + 0.55) * size);
+		gc.fillText("" + numTokensForDoor + "", (x + 0.45) 
+				* size, (y + 0.55) * size);
 	}
 }
@@ -4,7 +4,7 @@ import javafx.scene.canvas.GraphicsContext;
 /**
  * This a enemy that will follow a wall around the map.
  * @author William Conroy
- * @version 1.0
+ * @version 1.2
  */
 public class WallFollowEnemy extends Enemy {
 	public static final int UP_MOVE = 1;
@@ -15,6 +15,9 @@ public class WallFollowEnemy extends Enemy {
 	public static final int UP_RIGHT_MOVE = 2;
 	public static final int DOWN_LEFT_MOVE = 6;
 	public static final int DOWN_RIGHT_MOVE = 4;
+	// The directions of the eight cells around a cell, for the map's
+	// neighbour deltas.
+	private static final int AROUND = 8;
 	
 	
 	private static final String FRONT_LOCATION  = "WallFollowingEnemyFront.png";
@@ -36,46 +39,52 @@ public class WallFollowEnemy extends Enemy {
 	}
 	
 	/**
-	 * Finds out the next cell it is supposed to move onto.
+	 * Finds out the next cell it is supposed to move onto. The cells around
+	 * it are read from the map's padded grid, so nothing is made for them.
 	 * @return the correct cell to move to
 	 */
 	private BasicCell getMove() {
-		BasicCell[] neighbours = this.getNeighbours(this.location);
+		int here = map.getPaddedIndex(this.location);
 		
-		if (this.isNotAgainstAWall(this.getCell(this.location))) {
-			return neighbours[this.directionFacing];
+		if (this.isNotAgainstAWall(here)) {
+			return this.getCell(this.directionFacing);
 		}
 		
-		if (this.isOpeningLeft()) {
+		if (this.isOpeningLeft(here)) {
 			this.directionFacing = this.getLeft();
-		} else if (!this.canMove(neighbours[this.directionFacing])
-				|| this.isNotAgainstAWall(this.getCell(neighbours[this.directionFacing]))) {
-			if (this.checkMove(neighbours[this.getRight()])) {
+		} else if (!this.isOpen(here, this.directionFacing)
+				|| this.isNotAgainstAWall(here + map.getNeighbourDelta(this.directionFacing))) {
+			if (this.checkMove(here, this.getRight())) {
 				this.directionFacing = this.getRight();
 			} else {
 				this.directionFacing = this.spin();
 			}
 		} else {
 			// this.directionFacing = this.spin();
-			return neighbours[this.directionFacing];
+			return this.getCell(this.directionFacing);
 		}
 
-		return neighbours[this.directionFacing];
+		return this.getCell(this.directionFacing);
 	}
 
 	/**
 	 * Checks immediate surrounding cells for any floor cells.
+	 * @param here The padded index of the enemy's cell.
 	 * @return true if there are surrounding cells, false otherwise.
 	 */
-	private boolean isOpeningLeft() {
-		BasicCell[] neighbours = this.getNeighbours(this.location);
-		BasicCell[] diagonalNeigh = this.getNeighboursDiagonals(this.location);
+	private boolean isOpeningLeft(int here) {
+		int left = this.getLeft();
+		return this.isOpen(here, left) && !this.isOpen(here, Map.UP_LEFT + left);
+	}
 
-		if (this.canMove(neighbours[this.getLeft()]) && !this.canMove(diagonalNeigh[this.getLeft()])) {
-			return true;
-		} else {
-			return false;
-		}
+	/**
+	 * Checks if the enemy can move onto the next cell in a direction.
+	 * @param here The padded index of the enemy's cell.
+	 * @param dir The direction, which may be one of the map's diagonals.
+	 * @return true if it can move onto it.
+	 */
+	private boolean isOpen(int here, int dir) {
+		return map.isPassableAt(here + map.getNeighbourDelta(dir), this.safeLevel);
 	}
 
 	/**
@@ -124,11 +133,12 @@ public class WallFollowEnemy extends Enemy {
 	
 	/**
 	 * Checks if it can move onto the next cell.
-	 * @param nextCell The next cell it moves onto
+	 * @param here The padded index of the enemy's cell.
+	 * @param dir The direction of the next cell it moves onto
 	 * @return true if it can move onto it false otherwise.
 	 */
-	private boolean checkMove(BasicCell nextCell) {
-		return this.canMove(nextCell) && !this.isNotAgainstAWall(this.getCell(nextCell));
+	private boolean checkMove(int here, int dir) {
+		return this.isOpen(here, dir) && !this.isNotAgainstAWall(here + map.getNeighbourDelta(dir));
 	}
 
 	/**
@@ -148,60 +158,17 @@ public class WallFollowEnemy extends Enemy {
 	}
 
 	/**
-	 * Gets a list of the cells
-	 * @param cell The cell.
-	 * @return The list of cells.
-	 */
-	private BasicCell[] getCell(BasicCell cell) {
-		BasicCell[] cellList = new BasicCell[9];
-		cellList[0] = map.getCell(cell.getX() - 1, cell.getY() - 1);
-		cellList[1] = map.getCell(cell.getX(), cell.getY() - 1);
-		cellList[2] = map.getCell(cell.getX() + 1, cell.getY() - 1);
-		cellList[3] = map.getCell(cell.getX() + 1, cell.getY());
-		cellList[4] = map.getCell(cell.getX() + 1, cell.getY() + 1);
-		cellList[5] = map.getCell(cell.getX(), cell.getY() + 1);
-		cellList[6] = map.getCell(cell.getX() - 1, cell.getY() + 1);
-		cellList[7] = map.getCell(cell.getX() - 1, cell.getY());
-		cellList[8] = map.getCell(cell.getX(), cell.getY());
-		return cellList;
-	}
-
-	/**
-	 * Gets the cells next to the cell that the enemy is on.
-	 * @param cell the cell that the enemy is on.
-	 * @return The list of cells.
-	 */
-	private BasicCell[] getNeighbours(BasicCell cell) {
-		BasicCell[] cellList = new BasicCell[4];
-		cellList[0] = map.getCell(cell.getX(), cell.getY() - 1);
-		cellList[1] = map.getCell(cell.getX() + 1, cell.getY());
-		cellList[2] = map.getCell(cell.getX(), cell.getY() + 1);
-		cellList[3] = map.getCell(cell.getX() - 1, cell.getY());
-		return cellList;
-	}
-
-	/**
-	 * Gets the cells digonal to the cell that the enemy is on.
-	 * @param cell The cell the enemy is on.
-	 * @return The list of diagonal cells.
-	 */
-	private BasicCell[] getNeighboursDiagonals(BasicCell cell) {
-		BasicCell[] cellList = new BasicCell[4];
-		cellList[0] = map.getCell(cell.getX() - 1, cell.getY() - 1);
-		cellList[1] = map.getCell(cell.getX() + 1, cell.getY() - 1);
-		cellList[2] = map.getCell(cell.getX() + 1, cell.getY() + 1);
-		cellList[3] = map.getCell(cell.getX() - 1, cell.getY() + 1);
-		return cellList;
-	}
-
-	/**
-	 * Checks if the enemy is against a wall.
-	 * @param cells The list of cells next to the enemy.
+	 * Checks if the enemy is against a wall, which is when the cell or any
+	 * of the eight cells around it cannot be moved onto.
+	 * @param cell The padded index of the cell the enemy is on.
 	 * @return true if not, false otherwise.
 	 */
-	private boolean isNotAgainstAWall(BasicCell[] cells) {
-		for (int i = 0; i < cells.length; i++) {
-			if (!canMove(cells[i])) {
+	private boolean isNotAgainstAWall(int cell) {
+		if (!map.isPassableAt(cell, this.safeLevel)) {
+			return false;
+		}
+		for (int dir = 0; dir < AROUND; dir++) {
+			if (!this.isOpen(cell, dir)) {
 				return false;
 			}
 		}
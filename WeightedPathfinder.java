@@ -0,0 +1,273 @@
+package application;
+
+import java.util.Arrays;
+
+/**
+ * Finds the cheapest path between two cells when moving onto some kinds of
+ * cell costs more than others, using Dial's algorithm. The weights come
+ * from CellWeights and are small whole numbers, so the open set is a
+ * BucketQueue instead of a heap and every push and pop takes constant
+ * time. The weight of every cell is looked up once and kept in an array,
+ * and only changed cells are looked up again.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.0
+ */
+public class WeightedPathfinder implements MapListener {
+	private Map mapLevel;
+	private int width;
+	private CellWeights weights;
+	// The cost of moving onto each cell.
+	private byte[] cellWeights;
+	// How far away in the index the neighbour in each direction is.
+	private int[] deltas;
+
+	// The search arrays, indexed by y * width + x.
+	private int[] gCost;
+	private int[] parent;
+	private boolean[] closed;
+	private int[] stamp;
+	private int generation;
+	private BucketQueue openSet;
+
+	// The last path found, from start to goal.
+	private int[] path;
+	private int pathLength;
+	private int pathCost;
+	private int expandedCount;
+
+	/**
+	 * Creates the pathfinder for a map with the default weights.
+	 *
+	 * @param mapLevel
+	 *            the map to search.
+	 */
+	public WeightedPathfinder(Map mapLevel) {
+		this.mapLevel = mapLevel;
+		this.width = mapLevel.getMapWidth();
+
+		int size = this.width * mapLevel.getMapHeight();
+		this.cellWeights = new byte[size];
+		this.gCost = new int[size];
+		this.parent = new int[size];
+		this.closed = new boolean[size];
+		this.stamp = new int[size];
+		this.generation = 0;
+		this.openSet = new BucketQueue(size, CellWeights.MAX_WEIGHT);
+		this.path = new int[size];
+		this.pathLength = 0;
+
+		this.deltas = new int[NavGraph.DIRECTIONS];
+		this.deltas[Character.DIRECTION_UP] = -this.width;
+		this.deltas[Character.DIRECTION_RIGHT] = 1;
+		this.deltas[Character.DIRECTION_DOWN] = this.width;
+		this.deltas[Character.DIRECTION_LEFT] = -1;
+
+		this.setWeights(new CellWeights());
+	}
+
+	/**
+	 * Sets the weights used by later searches.
+	 *
+	 * @param weights
+	 *            the cost of moving onto each class of cell.
+	 */
+	public void setWeights(CellWeights weights) {
+		this.weights = weights;
+		for (int node = 0; node < this.cellWeights.length; node++) {
+			this.updateWeight(node);
+		}
+	}
+
+	/**
+	 * Gets the weights used by searches.
+	 *
+	 * @return the weights.
+	 */
+	public CellWeights getWeights() {
+		return this.weights;
+	}
+
+	/**
+	 * Looks up the weight of a cell that has changed.
+	 *
+	 * @param x
+	 *            the x position of the changed cell.
+	 * @param y
+	 *            the y position of the changed cell.
+	 * @param version
+	 *            the version of the map after the change.
+	 */
+	public void cellChanged(int x, int y, int version) {
+		this.updateWeight(y * this.width + x);
+	}
+
+	/**
+	 * Finds the cheapest path between two cells for a character with the
+	 * given safe level. Moving onto a cell costs its weight, and moving
+	 * through a teleporter costs the teleporter's weight.
+	 *
+	 * @param start
+	 *            the index of the starting cell.
+	 * @param goal
+	 *            the index of the cell to reach.
+	 * @param safeLevel
+	 *            the safe level of the character that is moving.
+	 * @return true if a path was found.
+	 */
+	public boolean findPath(int start, int goal, int safeLevel) {
+		this.pathLength = 0;
+		this.expandedCount = 0;
+		if (!this.mapLevel.getComponents(safeLevel).isConnected(start, goal)) {
+			return false;
+		}
+
+		NavGraph graph = this.mapLevel.getNavGraph(safeLevel);
+		this.nextGeneration();
+		this.openSet.clear();
+		this.touch(start, 0, GridPathfinder.NO_NODE);
+		this.openSet.add(start, 0);
+
+		while (!this.openSet.isEmpty()) {
+			int current = this.openSet.poll();
+			if (current == goal) {
+				this.buildPath(goal);
+				return true;
+			}
+			this.closed[current] = true;
+			this.expandedCount++;
+
+			int mask = graph.getNeighbourMask(current);
+			for (int dir = 0; dir < NavGraph.DIRECTIONS; dir++) {
+				if ((mask & (1 << dir)) == 0) {
+					continue;
+				}
+				// The cell stepped onto is the teleporter if there is one, so
+				// its weight is the cost either way.
+				int cost = this.cellWeights[current + this.deltas[dir]];
+				this.relax(current, graph.getNeighbour(current, dir), this.gCost[current] + cost);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the number of cells on the last path found, including the start
+	 * and the goal.
+	 *
+	 * @return the length of the path, 0 if no path was found.
+	 */
+	public int getPathLength() {
+		return this.pathLength;
+	}
+
+	/**
+	 * Gets a cell on the last path found.
+	 *
+	 * @param i
+	 *            the step of the path, 0 being the start.
+	 * @return the index of the cell.
+	 */
+	public int getPathNode(int i) {
+		return this.path[i];
+	}
+
+	/**
+	 * Gets the total weight of the last path found.
+	 *
+	 * @return the cost of the path.
+	 */
+	public int getPathCost() {
+		return this.pathCost;
+	}
+
+	/**
+	 * Gets how many cells the last search expanded.
+	 *
+	 * @return the number of expanded cells.
+	 */
+	public int getExpandedCount() {
+		return this.expandedCount;
+	}
+
+	/**
+	 * Gives a cell a cheaper cost if going through the current cell is
+	 * cheaper than any way found so far.
+	 *
+	 * @param current
+	 *            the index of the cell being expanded.
+	 * @param neighbour
+	 *            the index of the cell moved onto.
+	 * @param cost
+	 *            the cost of reaching it through the current cell.
+	 */
+	private void relax(int current, int neighbour, int cost) {
+		if (this.stamp[neighbour] != this.generation) {
+			this.touch(neighbour, cost, current);
+			this.openSet.add(neighbour, cost);
+		} else if (!this.closed[neighbour] && cost < this.gCost[neighbour]) {
+			this.gCost[neighbour] = cost;
+			this.parent[neighbour] = current;
+			this.openSet.decreaseKey(neighbour, cost);
+		}
+	}
+
+	/**
+	 * Marks a cell as seen by this search.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 * @param g
+	 *            the cost of reaching it.
+	 * @param from
+	 *            the cell it was reached from.
+	 */
+	private void touch(int node, int g, int from) {
+		this.stamp[node] = this.generation;
+		this.closed[node] = false;
+		this.gCost[node] = g;
+		this.parent[node] = from;
+	}
+
+	/**
+	 * Moves on to the next search, so every cell looks unvisited.
+	 */
+	private void nextGeneration() {
+		this.generation++;
+		if (this.generation == 0) {
+			Arrays.fill(this.stamp, 0);
+			this.generation = 1;
+		}
+	}
+
+	/**
+	 * Copies the path ending at the goal into the path array, from start to
+	 * goal.
+	 *
+	 * @param goal
+	 *            the index of the goal.
+	 */
+	private void buildPath(int goal) {
+		int length = 0;
+		for (int node = goal; node != GridPathfinder.NO_NODE; node = this.parent[node]) {
+			length++;
+		}
+		int i = length;
+		for (int node = goal; node != GridPathfinder.NO_NODE; node = this.parent[node]) {
+			this.path[--i] = node;
+		}
+		this.pathLength = length;
+		this.pathCost = this.gCost[goal];
+	}
+
+	/**
+	 * Looks up the weight of one cell.
+	 *
+	 * @param node
+	 *            the index of the cell.
+	 */
+	private void updateWeight(int node) {
+		BasicCell cell = this.mapLevel.getCell(node % this.width, node / this.width);
+		this.cellWeights[node] = (byte) this.weights.getWeight(cell);
+	}
+}
@@ -0,0 +1,109 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+/**
+ * Lets a SmartTargetingEnemy take the cheapest path to the Player by the
+ * map's CellWeights, so it keeps to plain floor and only goes through
+ * teleporters or other costly cells when that saves enough steps.
+ *
+ * @author Scarpati, Conroy.
+ * @version 1.0
+ */
+public class WeightedPlanner implements PathPlanner {
+	private Enemy enemy;
+	private Character player;
+	private Map mapLevel;
+	private long expandedCount;
+
+	/**
+	 * Creates the planner.
+	 *
+	 * @param enemy
+	 *            an instance of the Enemy.
+	 * @param player
+	 *            an instance of the Player.
+	 * @param mapLevel
+	 *            an instance of the Map.
+	 */
+	public WeightedPlanner(Enemy enemy, Character player, Map mapLevel) {
+		this.enemy = enemy;
+		this.player = player;
+		this.mapLevel = mapLevel;
+		this.expandedCount = 0;
+	}
+
+	/**
+	 * Determines the next cell to move to. If there is no path to the
+	 * player, the enemy moves randomly.
+	 *
+	 * @return the next cell to move towards.
+	 */
+	public BasicCell getMove() {
+		WeightedPathfinder pathfinder = this.search();
+		if (pathfinder.getPathLength() == 0) {
+			return this.enemy.getRandomMove();
+		}
+		if (pathfinder.getPathLength() == 1) {
+			return this.enemy.getLocation();
+		}
+		return this.getCell(pathfinder.getPathNode(1));
+	}
+
+	/**
+	 * Finds the cheapest path between the Enemy and the Player.
+	 *
+	 * @return the cells to the Player, starting at the Player and ending at
+	 *         the Enemy.
+	 */
+	public ArrayList<BasicCell> findPath() {
+		WeightedPathfinder pathfinder = this.search();
+		ArrayList<BasicCell> path = new ArrayList<BasicCell>();
+		for (int i = 0; i < pathfinder.getPathLength(); i++) {
+			path.add(this.getCell(pathfinder.getPathNode(i)));
+		}
+		if (path.isEmpty()) {
+			path.add(this.enemy.getLocation());
+		}
+		Collections.reverse(path);
+		return path;
+	}
+
+	/**
+	 * Gets how many cells this planner has expanded since it was created.
+	 *
+	 * @return the number of expanded cells.
+	 */
+	public long getExpandedCount() {
+		return this.expandedCount;
+	}
+
+	/**
+	 * Runs the search from the Enemy to the Player.
+	 *
+	 * @return the pathfinder holding the path.
+	 */
+	private WeightedPathfinder search() {
+		WeightedPathfinder pathfinder = this.mapLevel.getWeightedPathfinder();
+		int width = this.mapLevel.getMapWidth();
+		BasicCell from = this.enemy.getLocation();
+		BasicCell to = this.player.getLocation();
+		pathfinder.findPath(from.getY() * width + from.getX(), to.getY() * width + to.getX(),
+				this.enemy.getSafeLevel());
+		this.expandedCount += pathfinder.getExpandedCount();
+		return pathfinder;
+	}
+
+	/**
+	 * Gets the cell of the map at an index.
+	 *
+	 * @param index
+	 *            the index of the cell.
+	 * @return the cell.
+	 */
+	private BasicCell getCell(int index) {
+		int width = this.mapLevel.getMapWidth();
+		return this.mapLevel.getCell(index % width, index / width);
+	}
+}